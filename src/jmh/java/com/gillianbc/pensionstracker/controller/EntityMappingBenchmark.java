@@ -0,0 +1,113 @@
+package com.gillianbc.pensionstracker.controller;
+
+import com.gillianbc.pensionstracker.dto.PotDto;
+import com.gillianbc.pensionstracker.dto.SnapshotDto;
+import com.gillianbc.pensionstracker.dto.TransactionDto;
+import com.gillianbc.pensionstracker.model.Pot;
+import com.gillianbc.pensionstracker.model.Provider;
+import com.gillianbc.pensionstracker.model.Snapshot;
+import com.gillianbc.pensionstracker.model.Transaction;
+import com.gillianbc.pensionstracker.repo.PotRepo;
+import com.gillianbc.pensionstracker.repo.ProviderRepo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@link ApiController} entity/DTO mappers every POST runs: the request DTO to an entity,
+ * including the pot or provider lookup, and the saved entity back to a DTO. The repositories are
+ * stubs whose {@code findById} returns a fixed entity, so only the mapping is timed, not the
+ * lookup itself.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityMappingBenchmark {
+
+    PotRepo potRepo;
+    ProviderRepo providerRepo;
+    PotDto potDto;
+    SnapshotDto snapshotDto;
+    TransactionDto transactionDto;
+    Pot pot;
+    Snapshot snapshot;
+    Transaction transaction;
+
+    @Setup
+    public void setUp() {
+        Provider provider = new Provider();
+        provider.setId(206L);
+        provider.setName("Acme Finance");
+        providerRepo = findingOnly(ProviderRepo.class, provider);
+
+        potDto = new PotDto(null, 206L, "SIPP", "GBP", "ACTIVE", "Main pension", "PN123", "SN123");
+        pot = ApiController.fromPotDto(potDto, providerRepo);
+        pot.setId(103L);
+        potRepo = findingOnly(PotRepo.class, pot);
+
+        LocalDate date = LocalDate.of(2025, 4, 5);
+        snapshotDto = new SnapshotDto(null, 103L, date, 187_654.32, "USER", "Year end");
+        transactionDto = new TransactionDto(null, 103L, date, "contribution", 250.0, "Monthly");
+        snapshot = ApiController.fromSnapshotDto(snapshotDto, potRepo);
+        snapshot.setId(1000L);
+        transaction = ApiController.fromTransactionDto(transactionDto, potRepo);
+        transaction.setId(2000L);
+    }
+
+    @Benchmark
+    public Pot fromPotDto() {
+        return ApiController.fromPotDto(potDto, providerRepo);
+    }
+
+    @Benchmark
+    public Snapshot fromSnapshotDto() {
+        return ApiController.fromSnapshotDto(snapshotDto, potRepo);
+    }
+
+    @Benchmark
+    public Transaction fromTransactionDto() {
+        return ApiController.fromTransactionDto(transactionDto, potRepo);
+    }
+
+    @Benchmark
+    public PotDto toPotDto() {
+        return ApiController.toPotDto(pot, true);
+    }
+
+    @Benchmark
+    public SnapshotDto toSnapshotDto() {
+        return ApiController.toSnapshotDto(snapshot);
+    }
+
+    @Benchmark
+    public TransactionDto toTransactionDto() {
+        return ApiController.toTransactionDto(transaction);
+    }
+
+    // A repository whose findById always finds the given entity; anything else is unsupported
+    private static <R> R findingOnly(Class<R> repo, Object entity) {
+        Optional<Object> found = Optional.of(entity);
+        return repo.cast(Proxy.newProxyInstance(repo.getClassLoader(), new Class<?>[]{repo},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findById")) {
+                        return found;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                }));
+    }
+}
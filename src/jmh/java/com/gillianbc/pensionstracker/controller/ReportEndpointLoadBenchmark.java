@@ -0,0 +1,99 @@
+package com.gillianbc.pensionstracker.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load test for {@code GET /api/reports/{potId}} against a running app, not a micro-benchmark:
+ * each JMH thread is one client with one request in flight. Compare throughput and the sampled
+ * p99 with the app started normally and with {@code --spring.profiles.active=virtual-threads}
+ * on Java 21, at the same client concurrency. Start the app with
+ * {@code --pensions.report.cache.max-size=0}, or every request after the first per pot is a
+ * cache hit and the database is never touched.
+ * <pre>
+ * ./mvnw -P benchmarks test-compile exec:exec -Djmh.args="ReportEndpointLoad -t 400 -p baseUrl=http://localhost:8080"
+ * </pre>
+ * Requests go round-robin over {@code potIds}, or every pot from {@code /api/pots} if it is
+ * empty, so seed a few pots with realistic histories first.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Threads(200)
+@Fork(1)
+public class ReportEndpointLoadBenchmark {
+
+    @Param("http://localhost:8080")
+    String baseUrl;
+
+    /** Comma-separated pot ids; empty means all pots. */
+    @Param("")
+    String potIds;
+
+    HttpClient client;
+    List<HttpRequest> requests;
+    final AtomicInteger next = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        List<String> ids = new ArrayList<>();
+        if (potIds.isBlank()) {
+            HttpResponse<String> pots = client.send(
+                    HttpRequest.newBuilder(URI.create(baseUrl + "/api/pots")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            for (JsonNode pot : new ObjectMapper().readTree(pots.body())) {
+                ids.add(pot.get("id").asText());
+            }
+        } else {
+            ids.addAll(List.of(potIds.split(",")));
+        }
+        if (ids.isEmpty()) {
+            throw new IllegalStateException("No pots at " + baseUrl + "; seed some first");
+        }
+        requests = ids.stream()
+                .map(id -> HttpRequest.newBuilder(URI.create(baseUrl + "/api/reports/" + id.trim()))
+                        .header("Accept", "application/json")
+                        .timeout(Duration.ofSeconds(30))
+                        .build())
+                .toList();
+    }
+
+    @Benchmark
+    public int getReport() throws Exception {
+        HttpRequest request = requests.get(Math.floorMod(next.getAndIncrement(), requests.size()));
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(request.uri() + " returned " + response.statusCode());
+        }
+        return response.body().length;
+    }
+}
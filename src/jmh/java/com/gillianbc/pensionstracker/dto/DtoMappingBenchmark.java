@@ -0,0 +1,97 @@
+package com.gillianbc.pensionstracker.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What the read endpoints do with rows once the database has returned them: build the DTOs from
+ * the projected columns, as the {@code select new ...Dto(...)} queries do, and write them as JSON
+ * with the application's date settings. The rows are an in-memory fixture of {@code size} pots
+ * and snapshots, so no database is involved. The entity mappers the writes use are timed by
+ * {@code controller.EntityMappingBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoMappingBenchmark {
+
+    @Param({"1", "100", "1000"})
+    int size;
+
+    // One row of columns per pot or snapshot, as a projection query returns them
+    List<Object[]> potRows;
+    List<Object[]> snapshotRows;
+    List<PotDto> pots;
+    List<SnapshotDto> snapshots;
+    ObjectWriter writer;
+
+    @Setup
+    public void setUp() {
+        potRows = new ArrayList<>(size);
+        snapshotRows = new ArrayList<>(size);
+        LocalDate date = LocalDate.of(2015, 4, 6);
+        for (int i = 0; i < size; i++) {
+            potRows.add(new Object[]{100L + i, 206L, "SIPP " + i, "GBP", "active", "Main pension", "PN" + i, "SN" + i});
+            snapshotRows.add(new Object[]{1000L + i, 103L, date.plusDays(i), 100_000.0 + i, "USER", null});
+        }
+        pots = potDtos();
+        snapshots = snapshotDtos();
+        writer = JsonMapper.builder()
+                .addModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build()
+                .writer();
+    }
+
+    @Benchmark
+    public List<PotDto> potDtos() {
+        List<PotDto> dtos = new ArrayList<>(potRows.size());
+        for (Object[] r : potRows) {
+            dtos.add(new PotDto((Long) r[0], (Long) r[1], (String) r[2], (String) r[3], (String) r[4],
+                    (String) r[5], (String) r[6], (String) r[7]));
+        }
+        return dtos;
+    }
+
+    @Benchmark
+    public List<SnapshotDto> snapshotDtos() {
+        List<SnapshotDto> dtos = new ArrayList<>(snapshotRows.size());
+        for (Object[] r : snapshotRows) {
+            dtos.add(new SnapshotDto((Long) r[0], (Long) r[1], (LocalDate) r[2], (Double) r[3],
+                    (String) r[4], (String) r[5]));
+        }
+        return dtos;
+    }
+
+    @Benchmark
+    public String potsAsJson() throws JsonProcessingException {
+        return writer.writeValueAsString(pots);
+    }
+
+    @Benchmark
+    public String snapshotsAsJson() throws JsonProcessingException {
+        return writer.writeValueAsString(snapshots);
+    }
+}
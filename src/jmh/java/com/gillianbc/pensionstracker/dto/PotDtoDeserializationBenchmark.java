@@ -0,0 +1,48 @@
+package com.gillianbc.pensionstracker.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PotDto}'s {@code @JsonCreator}, for both ways a client can name the provider.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PotDtoDeserializationBenchmark {
+
+    private static final String WITH_PROVIDER_ID = """
+            {"id":103,"providerId":206,"name":"SIPP","currency":"GBP","status":"active",
+             "notes":"Main pension","planNumber":"PN123","schemeNumber":"SN123"}""";
+
+    private static final String WITH_PROVIDER_OBJECT = """
+            {"id":103,"provider":{"id":206},"name":"SIPP","currency":"GBP","status":"active",
+             "notes":"Main pension","planNumber":"PN123","schemeNumber":"SN123"}""";
+
+    ObjectReader reader = new ObjectMapper().readerFor(PotDto.class);
+
+    @Benchmark
+    public PotDto providerId() throws IOException {
+        return reader.readValue(WITH_PROVIDER_ID);
+    }
+
+    @Benchmark
+    public PotDto providerObject() throws IOException {
+        return reader.readValue(WITH_PROVIDER_OBJECT);
+    }
+}
@@ -0,0 +1,43 @@
+package com.gillianbc.pensionstracker.dto;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building a {@link PotReportDto}, which derives the growth percentage and CAGR from the figures
+ * passed in. With no opening balance neither can be computed, so that case skips the maths.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PotReportDtoBenchmark {
+
+    LocalDate from = LocalDate.of(2015, 4, 6);
+    LocalDate to = LocalDate.of(2025, 4, 5);
+    double opening = 100_000;
+    double current = 187_654.32;
+    double contributions = 42_000;
+
+    @Benchmark
+    public PotReportDto construct() {
+        return new PotReportDto(1L, from, to, opening, current, contributions, contributions, 45_654.32);
+    }
+
+    @Benchmark
+    public PotReportDto constructWithoutOpeningBalance() {
+        return new PotReportDto(1L, from, to, 0, current, contributions, contributions, 145_654.32);
+    }
+}
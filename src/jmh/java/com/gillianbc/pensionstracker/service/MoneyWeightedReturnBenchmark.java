@@ -0,0 +1,64 @@
+package com.gillianbc.pensionstracker.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building and solving an XIRR, as {@link ReportService} does per report, for a pot with
+ * {@code flows} transactions spread over 30 years. Above roughly 11,000 there is more than one
+ * per day, and same-day flows are merged before solving.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyWeightedReturnBenchmark {
+
+    private static final long DAYS = 30 * 365;
+
+    @Param({"100", "10000", "50000"})
+    int flows;
+
+    LocalDate from = LocalDate.of(1995, 1, 1);
+    LocalDate[] dates;
+    double[] amounts;
+    LocalDate to;
+    double current;
+
+    @Setup
+    public void setUp() {
+        dates = new LocalDate[flows];
+        amounts = new double[flows];
+        double balance = 10_000;
+        for (int i = 0; i < flows; i++) {
+            dates[i] = from.plusDays(1 + i * DAYS / flows);
+            amounts[i] = i % 30 == 0 ? -200 : 25;
+            balance = balance * Math.pow(1.06, (double) DAYS / flows / 365) + amounts[i];
+        }
+        to = dates[flows - 1];
+        current = balance;
+    }
+
+    @Benchmark
+    public Double xirr() {
+        MoneyWeightedReturn mwr = new MoneyWeightedReturn(from, 10_000, to, current, flows);
+        for (int i = 0; i < flows; i++) {
+            mwr.addFlow(dates[i], amounts[i]);
+        }
+        return mwr.annualPercent();
+    }
+}
@@ -0,0 +1,101 @@
+package com.gillianbc.pensionstracker.service;
+
+import com.gillianbc.pensionstracker.dto.PotReportDto;
+import com.gillianbc.pensionstracker.model.Snapshot;
+import com.gillianbc.pensionstracker.model.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The in-memory part of {@link ReportService#buildReport}: totalling a pot's transactions
+ * and building the report, over synthetic histories of 10^2 to 10^6 rows.
+ * {@link #threePassStreams} keeps the original stream-per-total version as a baseline.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReportAggregationBenchmark {
+
+    private static final String[] TYPES = {
+            "contribution", "Contribution", "rebate", "employer_match", "transfer_in",
+            "transfer_out", "withdrawal", "fee", "adjustment"
+    };
+
+    @Param({"100", "1000", "10000", "100000", "1000000"})
+    int size;
+
+    List<Snapshot> snaps;
+    List<Transaction> txs;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        LocalDate start = LocalDate.of(1990, 1, 1);
+        snaps = new ArrayList<>(size);
+        txs = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Snapshot s = new Snapshot();
+            s.setDate(start.plusDays(i));
+            s.setBalance(10_000 + i + random.nextDouble());
+            snaps.add(s);
+
+            Transaction t = new Transaction();
+            t.setDate(start.plusDays(i));
+            t.setType(TYPES[random.nextInt(TYPES.length)]);
+            t.setAmount(random.nextDouble() * 1000 - 250);
+            txs.add(t);
+        }
+    }
+
+    @Benchmark
+    public ReportTotals singlePassTotals() {
+        return ReportTotals.of(txs);
+    }
+
+    @Benchmark
+    public PotReportDto reportFromLists() {
+        return ReportService.reportFrom(1L, snaps, txs);
+    }
+
+    @Benchmark
+    public double[] threePassStreams() {
+        double contribExclRebates = txs.stream()
+                .filter(t -> isInflow(t) && !isRebate(t))
+                .mapToDouble(Transaction::getAmount).sum();
+        double contribInclRebates = txs.stream()
+                .filter(t -> isInflow(t) || isRebate(t))
+                .mapToDouble(Transaction::getAmount).sum();
+        double netFlows = txs.stream()
+                .mapToDouble(Transaction::getAmount).sum();
+        return new double[]{contribExclRebates, contribInclRebates, netFlows};
+    }
+
+    private static boolean isRebate(Transaction t) {
+        return "rebate".equalsIgnoreCase(t.getType());
+    }
+
+    private static boolean isInflow(Transaction t) {
+        return switch (t.getType().toLowerCase()) {
+            case "contribution", "employer_match", "transfer_in" -> true;
+            default -> false;
+        };
+    }
+}
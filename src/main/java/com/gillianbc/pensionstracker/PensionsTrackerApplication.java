@@ -2,8 +2,10 @@ package com.gillianbc.pensionstracker;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
 
-@SpringBootApplication
+// R2DBC is configured by hand in ReactiveDataConfig so that it leaves the JPA setup alone
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
 public class PensionsTrackerApplication {
 
     public static void main(String[] args) {
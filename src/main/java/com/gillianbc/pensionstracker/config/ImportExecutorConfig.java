@@ -0,0 +1,54 @@
+package com.gillianbc.pensionstracker.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class ImportExecutorConfig {
+
+    /**
+     * Pool that runs import jobs off the request threads. Each running import holds a JDBC
+     * connection per batch, so keep it small. Unlike the report pool, a full queue rejects the
+     * job rather than running it on the caller, which would block the request again. Jobs spend
+     * most of their time waiting on the database, so with virtual threads on they run on virtual
+     * threads, still {@code workers} at a time.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor importExecutor(
+            @Value("${pensions.import.workers:2}") int workers,
+            @Value("${pensions.import.queue-capacity:16}") int queueCapacity,
+            Environment environment) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("import-");
+        executor.setVirtualThreads(Threading.VIRTUAL.isActive(environment));
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * Threads that open files and parse sheets for multi-file imports. They hold no JDBC
+     * connection, so this is bounded by CPU rather than the connection pool. Tasks are one per file
+     * or sheet and wait in an unbounded queue; the rows they parse are bounded by the writer's
+     * queue instead. Parsing is CPU work, so these stay platform threads even with virtual
+     * threads on.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor importParseExecutor(@Value("${pensions.import.parse-threads:4}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("import-parse-");
+        return executor;
+    }
+}
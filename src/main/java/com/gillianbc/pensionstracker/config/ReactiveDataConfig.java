@@ -0,0 +1,53 @@
+package com.gillianbc.pensionstracker.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
+
+/**
+ * R2DBC for the read-only endpoints under {@code /api/reactive}, next to JPA rather than instead
+ * of it.
+ * <p>
+ * Boot's R2DBC auto-configuration is excluded (see {@code PensionsTrackerApplication}): it would
+ * publish a {@code ConnectionFactory} bean, which makes the JDBC {@code DataSource} back off, and
+ * an R2DBC transaction manager that competes with JPA's for {@code @Transactional}. Here the pool
+ * is kept out of the context and only the template the repositories need is a bean. The
+ * reactive side never writes, so it needs no transaction manager.
+ */
+@Configuration
+@EnableR2dbcRepositories(basePackages = "com.gillianbc.pensionstracker.repo.reactive",
+        entityOperationsRef = "reactiveEntityTemplate")
+public class ReactiveDataConfig implements DisposableBean {
+
+    private ConnectionPool pool;
+
+    @Bean
+    public R2dbcEntityTemplate reactiveEntityTemplate(
+            @Value("${pensions.reactive.url}") String url,
+            @Value("${pensions.reactive.username}") String username,
+            @Value("${pensions.reactive.password}") String password,
+            @Value("${pensions.reactive.pool-size:10}") int poolSize) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .maxSize(poolSize)
+                .build());
+        return new R2dbcEntityTemplate(pool);
+    }
+
+    @Override
+    public void destroy() {
+        if (pool != null) {
+            pool.dispose();
+        }
+    }
+}
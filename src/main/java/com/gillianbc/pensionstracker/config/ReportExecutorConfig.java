@@ -0,0 +1,40 @@
+package com.gillianbc.pensionstracker.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class ReportExecutorConfig {
+
+    /**
+     * Pool used to build several pot reports at once. Keep it smaller than the JDBC pool,
+     * since every report holds a connection while it runs. When the queue is full the
+     * requesting thread builds the report itself rather than failing. Repository calls made
+     * by the pool count against the request that asked for the reports.
+     * <p>
+     * With virtual threads on ({@code spring.threads.virtual.enabled} on Java 21+) the workers are
+     * virtual, but there are still only {@code parallelism} of them: the limit is the connection
+     * pool, not the cost of a thread.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor reportExecutor(
+            @Value("${pensions.report.parallelism:8}") int parallelism,
+            @Value("${pensions.report.queue-capacity:256}") int queueCapacity,
+            Environment environment) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("report-");
+        executor.setVirtualThreads(Threading.VIRTUAL.isActive(environment));
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setTaskDecorator(RepositoryCallCounter.propagating());
+        return executor;
+    }
+}
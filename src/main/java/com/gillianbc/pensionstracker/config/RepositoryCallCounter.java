@@ -0,0 +1,66 @@
+package com.gillianbc.pensionstracker.config;
+
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the repository calls made on behalf of the current HTTP request. The count is held per
+ * thread; {@link #propagating()} carries it onto pool threads that do work for the request, such
+ * as the report builders behind {@code /api/reports/portfolio}.
+ */
+public final class RepositoryCallCounter {
+
+    private static final ThreadLocal<AtomicInteger> CURRENT = new ThreadLocal<>();
+
+    private RepositoryCallCounter() {
+    }
+
+    /**
+     * @param calls calls already counted for the request, on an earlier dispatch
+     */
+    static void start(int calls) {
+        CURRENT.set(new AtomicInteger(calls));
+    }
+
+    /**
+     * @return the calls counted since {@link #start()}, or 0 if the count was never started
+     */
+    static int stop() {
+        AtomicInteger calls = CURRENT.get();
+        CURRENT.remove();
+        return calls == null ? 0 : calls.get();
+    }
+
+    static void increment() {
+        AtomicInteger calls = CURRENT.get();
+        if (calls != null) {
+            calls.incrementAndGet();
+        }
+    }
+
+    /**
+     * Makes tasks count their repository calls against the request that submitted them.
+     */
+    public static TaskDecorator propagating() {
+        return task -> {
+            AtomicInteger calls = CURRENT.get();
+            if (calls == null) {
+                return task;
+            }
+            return () -> {
+                AtomicInteger previous = CURRENT.get();
+                CURRENT.set(calls);
+                try {
+                    task.run();
+                } finally {
+                    if (previous == null) {
+                        CURRENT.remove();
+                    } else {
+                        CURRENT.set(previous);
+                    }
+                }
+            };
+        };
+    }
+}
@@ -0,0 +1,86 @@
+package com.gillianbc.pensionstracker.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Records how many repository calls each HTTP request makes, as the
+ * {@code pensions.http.repository.calls} summary tagged with the request's method and URI
+ * template. A request whose count creeps up with the size of the data is doing N+1 queries.
+ * <p>
+ * The per-repository timings are Boot's own {@code spring.data.repository.invocations} meter;
+ * this only adds the per-request view. A request whose handler returns a {@code Mono} or
+ * {@code Flux} is dispatched twice, and the count is carried from the first dispatch to the
+ * second in a request attribute.
+ */
+@Configuration
+public class RepositoryCallMetricsConfig implements WebMvcConfigurer {
+
+    private static final String CALLS_ATTRIBUTE = RepositoryCallMetricsConfig.class.getName() + ".calls";
+
+    private final MeterRegistry registry;
+
+    public RepositoryCallMetricsConfig(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Adds the counting listener to every repository as it is created. Static so that it is
+     * registered before the repositories, without pulling this configuration in early.
+     */
+    @Bean
+    public static BeanPostProcessor repositoryCallCountingPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory ->
+                            factory.addInvocationListener(invocation -> RepositoryCallCounter.increment()));
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry interceptors) {
+        interceptors.addInterceptor(new AsyncHandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                Object earlier = request.getAttribute(CALLS_ATTRIBUTE);
+                RepositoryCallCounter.start(earlier instanceof Integer calls ? calls : 0);
+                return true;
+            }
+
+            @Override
+            public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                                       Object handler) {
+                request.setAttribute(CALLS_ATTRIBUTE, RepositoryCallCounter.stop());
+            }
+
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                        Object handler, Exception ex) {
+                int calls = RepositoryCallCounter.stop();
+                Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                DistributionSummary.builder("pensions.http.repository.calls")
+                        .description("Repository calls made by each HTTP request")
+                        .tag("method", request.getMethod())
+                        .tag("uri", pattern == null ? "UNKNOWN" : pattern.toString())
+                        .publishPercentileHistogram()
+                        .register(registry)
+                        .record(calls);
+            }
+        });
+    }
+}
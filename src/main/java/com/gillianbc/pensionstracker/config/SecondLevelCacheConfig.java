@@ -0,0 +1,62 @@
+package com.gillianbc.pensionstracker.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.gillianbc.pensionstracker.model.Pot;
+import com.gillianbc.pensionstracker.model.Provider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Hibernate second-level cache for the reference data every write looks up: providers and pots.
+ * <p>
+ * Each cached entity gets a JCache region named after its class, backed by a Caffeine cache
+ * bounded by {@code pensions.entity-cache.max-size} entries and {@code pensions.entity-cache.ttl}.
+ * The regions use {@code READ_WRITE} (see the entities), so saves and deletes through the
+ * persistence context update them after commit, and JPQL bulk deletes evict them. Rows changed
+ * behind Hibernate's back, by hand or by plain JDBC, are seen again once the ttl runs out.
+ * <p>
+ * Hit ratios are reported by {@link com.gillianbc.pensionstracker.service.EntityCacheStats}.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    public static final List<Class<?>> CACHED_ENTITIES = List.of(Provider.class, Pot.class);
+
+    /**
+     * A cache manager of our own rather than the provider's shared default, so each application
+     * context gets fresh regions and closing one doesn't close another's.
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager entityCacheManager(@Value("${pensions.entity-cache.max-size:10000}") long maxSize,
+                                           @Value("${pensions.entity-cache.ttl:1h}") Duration ttl) {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager manager = provider.getCacheManager(
+                URI.create("pensions-entity-cache-" + UUID.randomUUID()), getClass().getClassLoader());
+        for (Class<?> entity : CACHED_ENTITIES) {
+            CaffeineConfiguration<Object, Object> region = new CaffeineConfiguration<>();
+            region.setMaximumSize(OptionalLong.of(maxSize));
+            region.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+            region.setNativeStatisticsEnabled(true);
+            manager.createCache(entity.getName(), region);
+        }
+        return manager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer entityCacheCustomizer(CacheManager entityCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, entityCacheManager);
+    }
+}
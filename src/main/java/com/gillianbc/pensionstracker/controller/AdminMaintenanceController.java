@@ -1,9 +1,18 @@
 package com.gillianbc.pensionstracker.controller;
 
+import com.gillianbc.pensionstracker.dto.CacheStatsDto;
+import com.gillianbc.pensionstracker.dto.PurgeResultDto;
 import com.gillianbc.pensionstracker.service.DatabaseMaintenanceService;
+import com.gillianbc.pensionstracker.service.EntityCacheStats;
+import com.gillianbc.pensionstracker.service.MonthlyRollupService;
+import com.gillianbc.pensionstracker.service.ReportCache;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/admin")
@@ -11,6 +20,9 @@ import org.springframework.web.bind.annotation.*;
 public class AdminMaintenanceController {
 
     private final DatabaseMaintenanceService databaseMaintenanceService;
+    private final MonthlyRollupService monthlyRollupService;
+    private final ReportCache reportCache;
+    private final EntityCacheStats entityCacheStats;
 
     @PostMapping("/clear")
     public ResponseEntity<Void> clearDatabase() {
@@ -23,4 +35,47 @@ public class AdminMaintenanceController {
         databaseMaintenanceService.clearPots();
         return ResponseEntity.noContent().build();
     }
+
+    /**
+     * Deletes one pot and everything recorded against it, in bounded chunks.
+     * <pre>
+     * POST /api/admin/purge/pots/101
+     * </pre>
+     */
+    @PostMapping("/purge/pots/{potId}")
+    public PurgeResultDto purgePot(@PathVariable Long potId) {
+        PurgeResultDto result = databaseMaintenanceService.purgePot(potId);
+        if (result == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        return result;
+    }
+
+    /**
+     * Recomputes the monthly rollups from the snapshot and transaction tables.
+     */
+    @PostMapping("/rollups/rebuild")
+    public ResponseEntity<Void> rebuildRollups() {
+        monthlyRollupService.rebuild();
+        reportCache.evictAll();
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/cache/reports")
+    public CacheStatsDto reportCacheStats() {
+        return reportCache.stats();
+    }
+
+    @GetMapping("/cache/twr")
+    public CacheStatsDto twrCacheStats() {
+        return reportCache.twrStats();
+    }
+
+    /**
+     * Second-level cache counters for the cached entities, keyed {@code providers} and {@code pots}.
+     */
+    @GetMapping("/cache/entities")
+    public Map<String, CacheStatsDto> entityCacheStats() {
+        return entityCacheStats.stats();
+    }
 }
@@ -1,8 +1,13 @@
 package com.gillianbc.pensionstracker.controller;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gillianbc.pensionstracker.dto.BulkResultDto;
+import com.gillianbc.pensionstracker.dto.PageDto;
 import com.gillianbc.pensionstracker.dto.PotDto;
 import com.gillianbc.pensionstracker.dto.ProviderDto;
 import com.gillianbc.pensionstracker.dto.SnapshotDto;
+import com.gillianbc.pensionstracker.dto.TimeSeriesDto;
 import com.gillianbc.pensionstracker.dto.TransactionDto;
 import com.gillianbc.pensionstracker.model.Pot;
 import com.gillianbc.pensionstracker.model.Provider;
@@ -12,34 +17,92 @@ import com.gillianbc.pensionstracker.repo.PotRepo;
 import com.gillianbc.pensionstracker.repo.ProviderRepo;
 import com.gillianbc.pensionstracker.repo.SnapshotRepo;
 import com.gillianbc.pensionstracker.repo.TransactionRepo;
-import lombok.RequiredArgsConstructor;
+import com.gillianbc.pensionstracker.service.BulkWriteService;
+import com.gillianbc.pensionstracker.service.MonthlyRollupService;
+import com.gillianbc.pensionstracker.service.ReportCache;
+import com.gillianbc.pensionstracker.service.TimeSeriesService;
+import org.springframework.data.domain.Limit;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api")
-@RequiredArgsConstructor
 class ApiController {
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final ProviderRepo providers;
     private final PotRepo pots;
     private final SnapshotRepo snaps;
     private final TransactionRepo txs;
+    private final BulkWriteService bulkWrites;
+    private final TimeSeriesService timeSeries;
+    private final MonthlyRollupService rollups;
+    private final ReportCache reportCache;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTx;
+    private final TransactionTemplate writeTx;
+
+    ApiController(ProviderRepo providers, PotRepo pots, SnapshotRepo snaps, TransactionRepo txs,
+                  BulkWriteService bulkWrites, TimeSeriesService timeSeries, MonthlyRollupService rollups,
+                  ReportCache reportCache,
+                  ObjectMapper objectMapper,
+                  PlatformTransactionManager transactionManager) {
+        this.providers = providers;
+        this.pots = pots;
+        this.snaps = snaps;
+        this.txs = txs;
+        this.bulkWrites = bulkWrites;
+        this.timeSeries = timeSeries;
+        this.rollups = rollups;
+        this.reportCache = reportCache;
+        this.objectMapper = objectMapper;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.writeTx = new TransactionTemplate(transactionManager);
+    }
 
     // Providers
 
     @GetMapping("/providers")
     List<ProviderDto> listProviders() {
-        return providers.findAll().stream()
-                .map(ApiController::toProviderDto)
-                .collect(Collectors.toList());
+        return providers.findAllDtos();
+    }
+
+    /**
+     * Keyset-paginated providers: pass the previous page's {@code nextAfter} as {@code after}.
+     */
+    @GetMapping("/providers/page")
+    PageDto<ProviderDto> pageProviders(@RequestParam(defaultValue = "0") long after,
+                                       @RequestParam(defaultValue = "100") int size) {
+        return toPage(providers.findDtosAfter(after, pageLimit(size)), size, ProviderDto::id);
+    }
+
+    /**
+     * All providers as newline-delimited JSON, written as rows come off the database cursor.
+     */
+    @GetMapping(value = "/providers/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    ResponseEntity<StreamingResponseBody> streamProviders() {
+        return ndjson(providers::streamAllDtos);
     }
 
     @GetMapping("/providers/{id}")
     ProviderDto getProvider(@PathVariable Long id) {
-        return providers.findById(id)
-                .map(ApiController::toProviderDto)
+        return providers.findDtoById(id)
                 .orElseThrow(() -> new org.springframework.web.server.ResponseStatusException(
                         org.springframework.http.HttpStatus.NOT_FOUND, "Provider not found"));
     }
@@ -54,19 +117,65 @@ class ApiController {
 
     @GetMapping("/pots")
     List<PotDto> listPots() {
-        return pots.findAll().stream()
-                .map(pot -> toPotDto(pot, true))
-                .collect(Collectors.toList());
+        return pots.findAllDtos();
+    }
+
+    /**
+     * Keyset-paginated pots: pass the previous page's {@code nextAfter} as {@code after}.
+     */
+    @GetMapping("/pots/page")
+    PageDto<PotDto> pagePots(@RequestParam(defaultValue = "0") long after,
+                             @RequestParam(defaultValue = "100") int size) {
+        return toPage(pots.findDtosAfter(after, pageLimit(size)), size, PotDto::id);
+    }
+
+    /**
+     * All pots as newline-delimited JSON, written as rows come off the database cursor.
+     */
+    @GetMapping(value = "/pots/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    ResponseEntity<StreamingResponseBody> streamPots() {
+        return ndjson(pots::streamAllDtos);
     }
 
     @GetMapping("/pots/{id}")
     PotDto getPot(@PathVariable Long id) {
-        return pots.findById(id)
-                .map(p -> toPotDto(p, true))
+        return pots.findDtoById(id)
                 .orElseThrow(() -> new org.springframework.web.server.ResponseStatusException(
                         org.springframework.http.HttpStatus.NOT_FOUND, "Pot not found"));
     }
 
+    /**
+     * The pot's balance history, one point per bucket, downsampled on the server.
+     * <pre>
+     * GET /api/pots/101/timeseries?from=2010-01-01&amp;to=2024-12-31&amp;bucket=quarter&amp;maxPoints=200
+     * </pre>
+     * {@code bucket} is day, week, month (the default), quarter or year.
+     */
+    @GetMapping("/pots/{id}/timeseries")
+    TimeSeriesDto getPotTimeSeries(@PathVariable Long id,
+                                   @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                   @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                   @RequestParam(defaultValue = "month") String bucket,
+                                   @RequestParam(defaultValue = "500") int maxPoints) {
+        TimeSeriesService.Bucket parsedBucket;
+        try {
+            parsedBucket = TimeSeriesService.Bucket.valueOf(bucket.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new org.springframework.web.server.ResponseStatusException(
+                    org.springframework.http.HttpStatus.BAD_REQUEST, "Unknown bucket: " + bucket);
+        }
+        if (maxPoints < 3) {
+            throw new org.springframework.web.server.ResponseStatusException(
+                    org.springframework.http.HttpStatus.BAD_REQUEST, "maxPoints must be at least 3");
+        }
+        TimeSeriesDto series = timeSeries.buildTimeSeries(id, from, to, parsedBucket, maxPoints);
+        if (series == null) {
+            throw new org.springframework.web.server.ResponseStatusException(
+                    org.springframework.http.HttpStatus.NOT_FOUND, "Pot not found");
+        }
+        return series;
+    }
+
     @PostMapping("/pots")
     PotDto addPot(@RequestBody PotDto p) {
         Pot pot = fromPotDto(p, providers);
@@ -79,8 +188,7 @@ class ApiController {
 
     @GetMapping("/snapshots/{id}")
     SnapshotDto getSnapshot(@PathVariable Long id) {
-        return snaps.findById(id)
-                .map(ApiController::toSnapshotDto)
+        return snaps.findDtoById(id)
                 .orElseThrow(() -> new org.springframework.web.server.ResponseStatusException(
                         org.springframework.http.HttpStatus.NOT_FOUND, "Snapshot not found"));
     }
@@ -88,16 +196,39 @@ class ApiController {
     @PostMapping("/snapshots")
     SnapshotDto addSnap(@RequestBody SnapshotDto s) {
         Snapshot snap = fromSnapshotDto(s, pots);
-        Snapshot saved = snaps.save(snap);
+        Snapshot saved = writeTx.execute(status -> {
+            Snapshot inserted = snaps.save(snap);
+            rollups.recordSnapshots(List.of(inserted));
+            // inside the transaction, so the report is evicted again once the write commits
+            reportCache.evict(s.potId(), s.date());
+            return inserted;
+        });
         return toSnapshotDto(saved);
     }
 
+    /**
+     * Creates many snapshots in one request, from a JSON array.
+     */
+    @PostMapping(value = "/snapshots/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    BulkResultDto addSnaps(@RequestBody List<SnapshotDto> s) {
+        return bulkWrites.saveSnapshots(s.iterator());
+    }
+
+    /**
+     * Creates many snapshots in one request, from newline-delimited JSON read as it arrives.
+     */
+    @PostMapping(value = "/snapshots/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    BulkResultDto addSnapsNdjson(InputStream body) throws IOException {
+        try (MappingIterator<SnapshotDto> records = objectMapper.readerFor(SnapshotDto.class).readValues(body)) {
+            return bulkWrites.saveSnapshots(records);
+        }
+    }
+
     // Transactions
 
     @GetMapping("/transactions/{id}")
     TransactionDto getTransaction(@PathVariable Long id) {
-        return txs.findById(id)
-                .map(ApiController::toTransactionDto)
+        return txs.findDtoById(id)
                 .orElseThrow(() -> new org.springframework.web.server.ResponseStatusException(
                         org.springframework.http.HttpStatus.NOT_FOUND, "Transaction not found"));
     }
@@ -105,18 +236,77 @@ class ApiController {
     @PostMapping("/transactions")
     TransactionDto addTx(@RequestBody TransactionDto t) {
         Transaction tx = fromTransactionDto(t, pots);
-        Transaction saved = txs.save(tx);
+        Transaction saved = writeTx.execute(status -> {
+            Transaction inserted = txs.save(tx);
+            rollups.recordTransactions(List.of(inserted));
+            reportCache.evict(t.potId(), t.date());
+            return inserted;
+        });
         return toTransactionDto(saved);
     }
 
-    // Entity -> DTO Mappers
+    /**
+     * Creates many transactions in one request, from a JSON array.
+     */
+    @PostMapping(value = "/transactions/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    BulkResultDto addTxs(@RequestBody List<TransactionDto> t) {
+        return bulkWrites.saveTransactions(t.iterator());
+    }
+
+    /**
+     * Creates many transactions in one request, from newline-delimited JSON read as it arrives.
+     */
+    @PostMapping(value = "/transactions/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    BulkResultDto addTxsNdjson(InputStream body) throws IOException {
+        try (MappingIterator<TransactionDto> records = objectMapper.readerFor(TransactionDto.class).readValues(body)) {
+            return bulkWrites.saveTransactions(records);
+        }
+    }
+
+    // Paging and streaming
+
+    private static Limit pageLimit(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new org.springframework.web.server.ResponseStatusException(
+                    org.springframework.http.HttpStatus.BAD_REQUEST, "size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return Limit.of(size);
+    }
+
+    private static <T> PageDto<T> toPage(List<T> items, int size, Function<T, Long> id) {
+        Long nextAfter = items.size() < size ? null : id.apply(items.get(items.size() - 1));
+        return new PageDto<>(items, nextAfter);
+    }
+
+    /**
+     * Writes each row as one line of JSON. The query runs in its own read-only transaction
+     * on the async thread that writes the response, so the cursor stays open while streaming
+     * and only one fetch-size worth of rows is in memory at a time.
+     */
+    private <T> ResponseEntity<StreamingResponseBody> ndjson(Supplier<Stream<T>> query) {
+        StreamingResponseBody body = out -> readOnlyTx.executeWithoutResult(status -> {
+            try (Stream<T> rows = query.get()) {
+                rows.forEach(row -> {
+                    try {
+                        out.write(objectMapper.writeValueAsBytes(row));
+                        out.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    // Entity -> DTO Mappers; package-private for EntityMappingBenchmark
 
-    private static ProviderDto toProviderDto(Provider p) {
+    static ProviderDto toProviderDto(Provider p) {
         if (p == null) return null;
         return new ProviderDto(p.getId(), p.getName(), p.getNotes());
     }
 
-    private static PotDto toPotDto(Pot pot, boolean includeProvider) {
+    static PotDto toPotDto(Pot pot, boolean includeProvider) {
         if (pot == null) return null;
         return new PotDto(
                 pot.getId(),
@@ -130,7 +320,7 @@ class ApiController {
         );
     }
 
-    private static SnapshotDto toSnapshotDto(Snapshot s) {
+    static SnapshotDto toSnapshotDto(Snapshot s) {
         if (s == null) return null;
         return new SnapshotDto(
                 s.getId(),
@@ -142,7 +332,7 @@ class ApiController {
         );
     }
 
-    private static TransactionDto toTransactionDto(Transaction t) {
+    static TransactionDto toTransactionDto(Transaction t) {
         if (t == null) return null;
         return new TransactionDto(
                 t.getId(),
@@ -156,7 +346,7 @@ class ApiController {
 
     // DTO -> Entity Mappers
 
-    private static Provider fromProviderDto(ProviderDto dto) {
+    static Provider fromProviderDto(ProviderDto dto) {
         Provider provider = new Provider();
         provider.setId(dto.id());
         provider.setName(dto.name());
@@ -164,7 +354,7 @@ class ApiController {
         return provider;
     }
 
-    private static Pot fromPotDto(PotDto dto, ProviderRepo providerRepo) {
+    static Pot fromPotDto(PotDto dto, ProviderRepo providerRepo) {
         Pot pot = new Pot();
         pot.setId(dto.id());
         pot.setName(dto.name());
@@ -181,7 +371,7 @@ class ApiController {
         return pot;
     }
 
-    private static Snapshot fromSnapshotDto(SnapshotDto dto, PotRepo potRepo) {
+    static Snapshot fromSnapshotDto(SnapshotDto dto, PotRepo potRepo) {
         Snapshot s = new Snapshot();
         s.setId(dto.id());
         if (dto.potId() != null) {
@@ -195,7 +385,7 @@ class ApiController {
         return s;
     }
 
-    private static Transaction fromTransactionDto(TransactionDto dto, PotRepo potRepo) {
+    static Transaction fromTransactionDto(TransactionDto dto, PotRepo potRepo) {
         Transaction t = new Transaction();
         t.setId(dto.id());
         if (dto.potId() != null) {
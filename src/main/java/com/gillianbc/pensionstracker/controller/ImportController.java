@@ -0,0 +1,240 @@
+package com.gillianbc.pensionstracker.controller;
+
+import com.gillianbc.pensionstracker.dto.ImportJobDto;
+import com.gillianbc.pensionstracker.service.ImportJobService;
+import com.gillianbc.pensionstracker.service.SnapshotImportService;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Background imports. Submitting returns straight away with a job id; poll the job for progress.
+ * Files can be named by server path, or uploaded as a multipart form or a raw request body.
+ */
+@RestController
+@RequestMapping("/api/imports")
+public class ImportController {
+
+    static final String XLSX_CONTENT_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+
+    // How long a client should wait before resubmitting when the import pool is full
+    private static final String RETRY_AFTER_SECONDS = "30";
+
+    private final ImportJobService importJobService;
+    private final DataSize maxUploadSize;
+
+    /**
+     * @param maxUploadSize the largest raw-body upload accepted; the same limit the servlet
+     *                      container applies to multipart uploads
+     */
+    public ImportController(ImportJobService importJobService,
+                            @Value("${spring.servlet.multipart.max-file-size:512MB}") DataSize maxUploadSize) {
+        this.importJobService = importJobService;
+        this.maxUploadSize = maxUploadSize;
+    }
+
+    /**
+     * Queues an import of an Excel (.xlsx) file into a pot, in the format described on
+     * {@link SnapshotController#importSnapshotsFromExcel}.
+     * <pre>
+     * POST /api/imports/excel/103
+     * Content-Type: application/json
+     *
+     * { "excelPath": "/absolute/path/to/snapshots.xlsx" }
+     * </pre>
+     * The path must be on the server's filesystem; from anywhere else, use the upload endpoints.
+     */
+    @PostMapping("/excel/{potId}")
+    public ResponseEntity<?> submitExcel(@PathVariable Long potId,
+                                         @RequestBody SnapshotController.ExcelPathRequest request) {
+        String excelPath = request.getExcelPath();
+        if (excelPath == null || excelPath.isBlank()) {
+            return ResponseEntity.badRequest().body("Excel path is required.");
+        }
+        File file = new File(excelPath);
+        if (!file.isFile()) {
+            return ResponseEntity.badRequest().body("File not found: " + excelPath);
+        }
+        return accepted(() -> importJobService.submitExcel(potId, file));
+    }
+
+    /**
+     * Queues an import of an uploaded .xlsx or CSV file, sent as the {@code file} part of a
+     * multipart form. The file is CSV if the part is {@code text/csv} or named {@code *.csv}.
+     * <pre>
+     * POST /api/imports/upload/103
+     * Content-Type: multipart/form-data; boundary=...
+     * </pre>
+     * The servlet container writes the part to disk as it arrives, and it is handed to the job
+     * from there, so the upload is never held on the heap.
+     */
+    @PostMapping(value = "/upload/{potId}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> uploadMultipart(@PathVariable Long potId,
+                                             @RequestParam("file") MultipartFile file) {
+        String name = file.getOriginalFilename() == null || file.getOriginalFilename().isBlank()
+                ? "upload" : file.getOriginalFilename();
+        SnapshotImportService.Format format = SnapshotImportService.Format.of(file.getContentType(), name);
+        return accepted(() -> importJobService.submitUpload(potId, name, format, file::transferTo));
+    }
+
+    /**
+     * Queues an import of a file sent as the raw request body, with an xlsx or {@code text/csv}
+     * content type. The body is streamed to a temp file rather than read into memory, and is
+     * refused with 413 once it passes {@code spring.servlet.multipart.max-file-size}, whether the
+     * Content-Length says so up front or the body simply keeps coming.
+     * <pre>
+     * POST /api/imports/upload/103?filename=provider-extract.csv
+     * Content-Type: text/csv
+     * </pre>
+     *
+     * @param filename optional name to report the job under; {@code *.csv} also marks an
+     *                 {@code application/octet-stream} body as CSV
+     */
+    @PostMapping(value = "/upload/{potId}",
+            consumes = {XLSX_CONTENT_TYPE, "text/csv", MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<?> uploadRaw(@PathVariable Long potId,
+                                       @RequestParam(value = "filename", required = false) String filename,
+                                       HttpServletRequest request) {
+        if (request.getContentLengthLong() > maxUploadSize.toBytes()) {
+            throw tooLarge();
+        }
+        SnapshotImportService.Format format = SnapshotImportService.Format.of(request.getContentType(), filename);
+        String name = filename != null && !filename.isBlank() ? filename
+                : format == SnapshotImportService.Format.CSV ? "upload.csv" : "upload.xlsx";
+        return accepted(() -> importJobService.submitUpload(potId, name, format,
+                target -> copyAtMost(request.getInputStream(), target)));
+    }
+
+    // The Content-Length can be absent (chunked) or wrong, so count what actually arrives
+    private void copyAtMost(InputStream in, Path target) throws IOException {
+        long limit = maxUploadSize.toBytes();
+        long copied = 0;
+        byte[] buf = new byte[64 * 1024];
+        try (OutputStream out = Files.newOutputStream(target)) {
+            int n;
+            while ((n = in.read(buf)) != -1) {
+                copied += n;
+                if (copied > limit) {
+                    throw tooLarge();
+                }
+                out.write(buf, 0, n);
+            }
+        }
+    }
+
+    private ResponseStatusException tooLarge() {
+        return new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                "Upload is larger than " + maxUploadSize.toMegabytes() + "MB");
+    }
+
+    /**
+     * Queues an import of several uploaded workbooks and CSV files, sent as {@code files} parts of
+     * a multipart form. Every sheet goes into the pot whose plan number, or failing that name, is
+     * the sheet name; a CSV file is one sheet named after the file. The finished job has a report
+     * for each sheet, including those that matched no pot.
+     * <pre>
+     * POST /api/imports/workbooks
+     * Content-Type: multipart/form-data; boundary=...
+     * </pre>
+     */
+    @PostMapping(value = "/workbooks", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> uploadWorkbooks(@RequestParam("files") List<MultipartFile> files) {
+        if (files.isEmpty()) {
+            return ResponseEntity.badRequest().body("At least one file is required.");
+        }
+        List<ImportJobService.UploadedFile> uploads = new ArrayList<>(files.size());
+        for (MultipartFile file : files) {
+            String name = file.getOriginalFilename() == null || file.getOriginalFilename().isBlank()
+                    ? "upload-" + (uploads.size() + 1) : file.getOriginalFilename();
+            uploads.add(new ImportJobService.UploadedFile(name,
+                    SnapshotImportService.Format.of(file.getContentType(), name), file::transferTo));
+        }
+        return accepted(() -> importJobService.submitWorkbookUploads(uploads));
+    }
+
+    /**
+     * As {@link #uploadWorkbooks}, for files already on the server.
+     * <pre>
+     * POST /api/imports/workbooks
+     * Content-Type: application/json
+     *
+     * { "paths": ["/data/exports/2025-03/provider-a.xlsx", "/data/exports/2025-03/provider-b.csv"] }
+     * </pre>
+     */
+    @PostMapping(value = "/workbooks", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> submitWorkbooks(@RequestBody WorkbookPathsRequest request) {
+        if (request.getPaths() == null || request.getPaths().isEmpty()) {
+            return ResponseEntity.badRequest().body("At least one path is required.");
+        }
+        List<File> files = new ArrayList<>(request.getPaths().size());
+        for (String path : request.getPaths()) {
+            File file = new File(path);
+            if (!file.isFile()) {
+                return ResponseEntity.badRequest().body("File not found: " + path);
+            }
+            files.add(file);
+        }
+        return accepted(() -> importJobService.submitWorkbooks(files));
+    }
+
+    @GetMapping("/{jobId}")
+    public ImportJobDto getJob(@PathVariable String jobId) {
+        ImportJobDto job = importJobService.getJob(jobId);
+        if (job == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        return job;
+    }
+
+    /**
+     * 202 with the queued job and its URL in the Location header; 404 if the pot does not exist;
+     * 503 if too many imports are already queued; 400 if the upload could not be read.
+     */
+    private ResponseEntity<?> accepted(Submission submission) {
+        ImportJobDto job;
+        try {
+            job = submission.submit();
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (TaskRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                    .body("Too many imports in progress; try again later.");
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body("Failed to read upload: " + e.getMessage());
+        }
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/imports/" + job.jobId()))
+                .body(job);
+    }
+
+    @FunctionalInterface
+    private interface Submission {
+        ImportJobDto submit() throws IOException;
+    }
+
+    @Data
+    public static class WorkbookPathsRequest {
+        private List<String> paths;
+    }
+}
@@ -0,0 +1,45 @@
+package com.gillianbc.pensionstracker.controller;
+
+import com.gillianbc.pensionstracker.dto.PotDto;
+import com.gillianbc.pensionstracker.dto.ProviderDto;
+import com.gillianbc.pensionstracker.repo.reactive.ReactivePotRepo;
+import com.gillianbc.pensionstracker.repo.reactive.ReactiveProviderRepo;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+/**
+ * Non-blocking variants of the list endpoints in {@link ApiController}, read over R2DBC. The
+ * plain lists are gathered before they are written, as the blocking ones are; the
+ * {@code /stream} variants write each row as newline-delimited JSON as it comes off the database.
+ */
+@RestController
+@RequestMapping("/api/reactive")
+@RequiredArgsConstructor
+public class ReactiveApiController {
+    private final ReactiveProviderRepo providers;
+    private final ReactivePotRepo pots;
+
+    @GetMapping(value = "/providers", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Flux<ProviderDto> listProviders() {
+        return providers.findAllDtos();
+    }
+
+    @GetMapping(value = "/providers/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ProviderDto> streamProviders() {
+        return providers.findAllDtos();
+    }
+
+    @GetMapping(value = "/pots", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Flux<PotDto> listPots() {
+        return pots.findAllDtos();
+    }
+
+    @GetMapping(value = "/pots/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<PotDto> streamPots() {
+        return pots.findAllDtos();
+    }
+}
@@ -0,0 +1,42 @@
+package com.gillianbc.pensionstracker.controller;
+
+import com.gillianbc.pensionstracker.dto.PortfolioReportDto;
+import com.gillianbc.pensionstracker.dto.PotReportDto;
+import com.gillianbc.pensionstracker.service.ReactiveReportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Non-blocking variant of {@link ReportController}, read over R2DBC. The request thread is
+ * released as soon as the handler returns, and the response is written when the queries finish.
+ * <pre>
+ * GET /api/reactive/reports/101
+ * GET /api/reactive/reports/portfolio?potIds=101,102
+ * </pre>
+ */
+@RestController
+@RequestMapping("/api/reactive/reports")
+@RequiredArgsConstructor
+public class ReactiveReportController {
+    private final ReactiveReportService reportService;
+
+    @GetMapping("/{potId}")
+    public Mono<PotReportDto> getReport(@PathVariable Long potId) {
+        return reportService.buildReport(potId)
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)));
+    }
+
+    @GetMapping("/portfolio")
+    public Mono<PortfolioReportDto> getPortfolio(@RequestParam(required = false) List<Long> potIds) {
+        return reportService.buildPortfolio(potIds);
+    }
+}
@@ -1,20 +1,27 @@
 package com.gillianbc.pensionstracker.controller;
 
+import com.gillianbc.pensionstracker.dto.PortfolioReportDto;
 import com.gillianbc.pensionstracker.dto.PotReportDto;
+import com.gillianbc.pensionstracker.dto.TwrReportDto;
+import com.gillianbc.pensionstracker.service.PortfolioReportService;
 import com.gillianbc.pensionstracker.service.ReportService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/reports")
 @RequiredArgsConstructor
 public class ReportController {
     private final ReportService reportService;
+    private final PortfolioReportService portfolioReportService;
 
     @GetMapping("/{potId}")
     public PotReportDto getReport(@PathVariable Long potId) {
@@ -24,4 +31,31 @@ public class ReportController {
         }
         return response;
     }
+
+    /**
+     * Time-weighted return, with one entry per period between consecutive snapshots.
+     * <pre>
+     * GET /api/reports/101/twr
+     * </pre>
+     */
+    @GetMapping("/{potId}/twr")
+    public TwrReportDto getTimeWeightedReturn(@PathVariable Long potId) {
+        TwrReportDto response = reportService.buildTimeWeightedReturn(potId);
+        if (response == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        return response;
+    }
+
+    /**
+     * Reports for all pots, or just those listed in {@code potIds}, plus a roll-up total.
+     * <pre>
+     * GET /api/reports/portfolio
+     * GET /api/reports/portfolio?potIds=101,102
+     * </pre>
+     */
+    @GetMapping("/portfolio")
+    public PortfolioReportDto getPortfolio(@RequestParam(required = false) List<Long> potIds) {
+        return portfolioReportService.buildPortfolio(potIds);
+    }
 }
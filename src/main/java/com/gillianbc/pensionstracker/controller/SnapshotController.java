@@ -1,29 +1,23 @@
 package com.gillianbc.pensionstracker.controller;
 
-import com.gillianbc.pensionstracker.service.SnapshotService;
+import com.gillianbc.pensionstracker.service.SnapshotImportService;
+import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
-import org.apache.poi.ss.usermodel.DataFormatter;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.io.FileInputStream;
-import java.time.LocalDate;
-import java.util.ArrayList;
+import java.io.File;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/snapshots")
 public class SnapshotController {
 
-    private final SnapshotService snapshotService;
+    private final SnapshotImportService snapshotImportService;
 
-    public SnapshotController(SnapshotService snapshotService) {
-        this.snapshotService = snapshotService;
+    public SnapshotController(SnapshotImportService snapshotImportService) {
+        this.snapshotImportService = snapshotImportService;
     }
 
     /**
@@ -51,6 +45,12 @@ public class SnapshotController {
      * }
      * </pre>
      *
+     * <p>Rows are written in batches of {@code pensions.import.batch-size}; the summary includes
+     * the import throughput in rows per second.</p>
+     *
+     * <p>The request waits for the whole import. For large files use
+     * {@code POST /api/imports/excel/{potId}}, which runs it in the background.</p>
+     *
      * @param potId   The ID of the pot into which the snapshots will be imported.
      * @param request JSON payload providing the Excel file's absolute path.
      * @return Summary of imported rows, or error details.
@@ -64,40 +64,20 @@ public class SnapshotController {
         if (excelPath == null || excelPath.isBlank()) {
             return ResponseEntity.badRequest().body("Excel path is required.");
         }
-        List<String> errors = new ArrayList<>();
-        int imported = 0;
-        try (FileInputStream fis = new FileInputStream(excelPath);
-             Workbook workbook = new XSSFWorkbook(fis)) {
-
-            Sheet sheet = workbook.getSheetAt(0);
-            DataFormatter formatter = new DataFormatter();
-
-            for (Row row : sheet) {
-                // Skip the header row if present (e.g., first row with "date", "balance")
-                if (row.getRowNum() == 0) {
-                    String header0 = formatter.formatCellValue(row.getCell(0)).toLowerCase();
-                    String header1 = formatter.formatCellValue(row.getCell(1)).toLowerCase();
-                    if ("date".equals(header0) && "balance".equals(header1)) {
-                        continue;
-                    }
-                }
-                String dateStr = formatter.formatCellValue(row.getCell(0));
-                String balanceStr = formatter.formatCellValue(row.getCell(1));
-                try {
-                    LocalDate date = LocalDate.parse(dateStr);
-                    double balance = Double.parseDouble(balanceStr.replace(",", ""));
-                    snapshotService.saveSnapshot(potId, date, balance);
-                    imported++;
-                } catch (Exception e) {
-                    errors.add("Row " + (row.getRowNum() + 1) + " error: " + e.getMessage());
-                }
-            }
+        SnapshotImportService.Result result;
+        try {
+            result = snapshotImportService.importExcel(potId, new File(excelPath));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Failed to read Excel file: " + e.getMessage());
         }
 
-        return ResponseEntity.ok("Imported " + imported + " snapshots for pot " + potId +
-                (errors.isEmpty() ? "" : "; Errors: " + String.join(" | ", errors)));
+        List<String> errors = result.errors();
+        return ResponseEntity.ok("Imported " + result.imported() + " snapshots for pot " + potId +
+                " in " + result.elapsedMillis() + " ms (" + Math.round(result.rowsPerSecond()) + " rows/sec)" +
+                (errors.isEmpty() ? "" : "; Errors: " + String.join(" | ", errors)) +
+                (result.errorCount() > errors.size() ? " | ... " + (result.errorCount() - errors.size()) + " more" : ""));
     }
 
     @Data
@@ -0,0 +1,23 @@
+package com.gillianbc.pensionstracker.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk create.
+ *
+ * @param received number of records read from the request
+ * @param created  number of records saved
+ * @param ids      the new id of each record, in request order; null where the record failed
+ * @param errors   one entry per failed record
+ */
+public record BulkResultDto(
+        int received,
+        int created,
+        List<Long> ids,
+        List<BulkErrorDto> errors
+) {
+    /**
+     * @param index zero-based position of the record in the request
+     */
+    public record BulkErrorDto(int index, String message) {}
+}
@@ -0,0 +1,9 @@
+package com.gillianbc.pensionstracker.dto;
+
+public record CacheStatsDto(
+        long size,
+        long hits,
+        long misses,
+        double hitRate,
+        long evictions
+) {}
@@ -0,0 +1,32 @@
+package com.gillianbc.pensionstracker.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * State of an import job, as of the moment it was read.
+ *
+ * @param potId         the pot imported into, or null for a multi-file import
+ * @param status        QUEUED, RUNNING, SUCCEEDED or FAILED; FAILED means the file could not be
+ *                      read at all, while rejected rows are reported in {@code errors}
+ * @param rowsProcessed rows read so far, imported or rejected
+ * @param rowsImported  snapshots written so far
+ * @param rowsPerSecond rows processed per second since the job started
+ * @param errorCount    number of errors; {@code errors} holds only the first few
+ * @param sheets        for a multi-file import, a report per finished sheet; otherwise empty
+ */
+public record ImportJobDto(
+        String jobId,
+        Long potId,
+        String source,
+        String status,
+        Instant submittedAt,
+        Instant startedAt,
+        Instant finishedAt,
+        int rowsProcessed,
+        int rowsImported,
+        double rowsPerSecond,
+        int errorCount,
+        List<String> errors,
+        List<SheetImportDto> sheets
+) {}
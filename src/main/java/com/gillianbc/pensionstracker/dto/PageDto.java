@@ -0,0 +1,14 @@
+package com.gillianbc.pensionstracker.dto;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated list, ordered by id.
+ *
+ * @param items     the rows on this page
+ * @param nextAfter pass as {@code after} to fetch the next page; null when this is the last page
+ */
+public record PageDto<T>(
+        List<T> items,
+        Long nextAfter
+) {}
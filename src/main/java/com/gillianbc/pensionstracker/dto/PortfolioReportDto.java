@@ -0,0 +1,21 @@
+package com.gillianbc.pensionstracker.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Reports for several pots plus their roll-up. The totals are sums over {@code pots};
+ * {@code fromDate} and {@code toDate} span the earliest and latest snapshot of any pot.
+ * Pots whose report failed are listed in {@code errors} and left out of the totals.
+ */
+public record PortfolioReportDto(
+        LocalDate fromDate,
+        LocalDate toDate,
+        double openingBalance,
+        double currentBalance,
+        double contributionsExclRebates,
+        double contributionsInclRebates,
+        double growth,
+        List<PotReportDto> pots,
+        List<PotReportErrorDto> errors
+) {}
@@ -13,7 +13,8 @@ public record PotReportDto(
         double contributionsInclRebates,
         double growth,
         Double cagrAnnualPercent, // null if not computable
-        double growthPercent
+        Double growthPercent, // null if not computable
+        Double xirrAnnualPercent // money-weighted return; null if not computable
 ) {
     public PotReportDto(
             Long potId,
@@ -24,6 +25,21 @@ public record PotReportDto(
             double contributionsExclRebates,
             double contributionsInclRebates,
             double growth
+    ) {
+        this(potId, fromDate, toDate, openingBalance, currentBalance,
+                contributionsExclRebates, contributionsInclRebates, growth, null);
+    }
+
+    public PotReportDto(
+            Long potId,
+            LocalDate fromDate,
+            LocalDate toDate,
+            double openingBalance,
+            double currentBalance,
+            double contributionsExclRebates,
+            double contributionsInclRebates,
+            double growth,
+            Double xirrAnnualPercent
     ) {
         this(
                 potId,
@@ -35,8 +51,8 @@ public record PotReportDto(
                 contributionsInclRebates,
                 growth,
                 computeCAGR(openingBalance, currentBalance, fromDate, toDate),
-                computeGrowthPercent(openingBalance, currentBalance, contributionsInclRebates)
-                
+                computeGrowthPercent(openingBalance, currentBalance, contributionsInclRebates),
+                xirrAnnualPercent
         );
     }
 
@@ -0,0 +1,9 @@
+package com.gillianbc.pensionstracker.dto;
+
+/**
+ * A pot whose report could not be built, and why.
+ */
+public record PotReportErrorDto(
+        Long potId,
+        String error
+) {}
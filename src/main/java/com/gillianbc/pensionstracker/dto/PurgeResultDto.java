@@ -0,0 +1,7 @@
+package com.gillianbc.pensionstracker.dto;
+
+public record PurgeResultDto(
+        Long potId,
+        long snapshotsDeleted,
+        long transactionsDeleted
+) {}
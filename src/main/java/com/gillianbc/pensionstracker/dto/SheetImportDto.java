@@ -0,0 +1,25 @@
+package com.gillianbc.pensionstracker.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of importing one sheet of a workbook, or one CSV file, in a multi-file import.
+ *
+ * @param file         the file the sheet came from
+ * @param sheet        the sheet name; for a CSV file, the file name without its extension
+ * @param potId        the pot the sheet was matched to, or null if it wasn't
+ * @param status       IMPORTED; UNMATCHED or AMBIGUOUS if no single pot has the sheet name as
+ *                     its plan number or name; FAILED if the sheet could not be read
+ * @param rowsImported snapshots written
+ * @param rowsRejected rows that could not be parsed or written
+ * @param errors       the first few errors; the job's error count covers them all
+ */
+public record SheetImportDto(
+        String file,
+        String sheet,
+        Long potId,
+        String status,
+        int rowsImported,
+        int rowsRejected,
+        List<String> errors
+) {}
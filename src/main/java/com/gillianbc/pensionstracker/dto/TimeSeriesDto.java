@@ -0,0 +1,23 @@
+package com.gillianbc.pensionstracker.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * A pot's balance history between {@code from} and {@code to}, one point per {@code bucket},
+ * downsampled to at most {@code maxPoints}. Without a requested range, {@code from} and {@code to}
+ * are the pot's first and last snapshot or transaction dates, or null if it has none.
+ * <p>
+ * {@code pendingFlows} sums the transactions after the last point's bucket. No snapshot has
+ * recorded a balance that includes them yet, so they belong to no point, but they are reported
+ * here so the series accounts for every transaction in the range.
+ */
+public record TimeSeriesDto(
+        Long potId,
+        String bucket,
+        LocalDate from,
+        LocalDate to,
+        int maxPoints,
+        List<TimeSeriesPointDto> points,
+        double pendingFlows
+) {}
@@ -0,0 +1,13 @@
+package com.gillianbc.pensionstracker.dto;
+
+import java.time.LocalDate;
+
+/**
+ * One point of a pot's balance history. {@code date} and {@code balance} come from the last
+ * snapshot in the point's bucket; {@code netFlows} sums every transaction since the previous point.
+ */
+public record TimeSeriesPointDto(
+        LocalDate date,
+        double balance,
+        double netFlows
+) {}
@@ -0,0 +1,18 @@
+package com.gillianbc.pensionstracker.dto;
+
+import java.time.LocalDate;
+
+/**
+ * One sub-period of a time-weighted return: the interval between two consecutive snapshots.
+ * {@code netFlows} are the external flows dated in (fromDate, toDate]; {@code cumulativePercent}
+ * chains every period up to and including this one.
+ */
+public record TwrPeriodDto(
+        LocalDate fromDate,
+        LocalDate toDate,
+        double openingBalance,
+        double closingBalance,
+        double netFlows,
+        Double returnPercent, // null if the period has no capital to measure against
+        double cumulativePercent
+) {}
@@ -0,0 +1,16 @@
+package com.gillianbc.pensionstracker.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Time-weighted return of a pot from its first to its last snapshot, with the per-period series.
+ */
+public record TwrReportDto(
+        Long potId,
+        LocalDate fromDate,
+        LocalDate toDate,
+        double cumulativePercent,
+        Double annualisedPercent, // null if not computable
+        List<TwrPeriodDto> periods
+) {}
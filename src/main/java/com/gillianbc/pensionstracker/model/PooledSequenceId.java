@@ -0,0 +1,27 @@
+package com.gillianbc.pensionstracker.model;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Marks an id as generated from a database sequence through Hibernate's pooled optimizer.
+ * <p>
+ * Ids are handed out from memory and the sequence is only called once every
+ * {@code pensions.id.allocation-size} inserts. See {@link PooledSequenceGenerator}.
+ */
+@IdGeneratorType(PooledSequenceGenerator.class)
+@Retention(RUNTIME)
+@Target({FIELD, METHOD})
+public @interface PooledSequenceId {
+
+    /**
+     * Name of the database sequence backing the id.
+     */
+    String sequenceName();
+}
@@ -2,12 +2,16 @@ package com.gillianbc.pensionstracker.model;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Data
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Pot {
     @Id
-    @GeneratedValue
+    @PooledSequenceId(sequenceName = "pot_seq")
     Long id;
     @ManyToOne(fetch = FetchType.LAZY) Provider provider;
     @Column(nullable=false) String name;
@@ -0,0 +1,47 @@
+package com.gillianbc.pensionstracker.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * One pot's month, rolled up from its snapshots and transactions: the closing balance (the
+ * month's last snapshot) and the month's transaction amounts by category.
+ * <p>
+ * Rows are kept current by the write paths through MonthlyRollupService, never written through
+ * JPA, and can be rebuilt from the raw tables at any time.
+ */
+@Data
+@Entity
+@Table(name = "pot_monthly_rollup")
+public class PotMonthlyRollup {
+    @EmbeddedId
+    PotMonth id;
+    LocalDate closingDate;   // null if the month has no snapshot
+    Double closingBalance;
+    @Column(nullable = false) double contributions;
+    @Column(nullable = false) double employerMatch;
+    @Column(nullable = false) double transfersIn;
+    @Column(nullable = false) double rebates;
+    @Column(nullable = false) double transfersOut;
+    @Column(nullable = false) double withdrawals;
+    @Column(nullable = false) double fees;
+    @Column(nullable = false) double otherFlows; // adjustments and unrecognised types
+    @Column(nullable = false) double netFlows;   // every transaction amount in the month
+
+    @Data
+    @Embeddable
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PotMonth implements Serializable {
+        // ddl-auto orders key columns by attribute name, so the primary key is (pot_id, month)
+        // and serves per-pot range reads
+        Long potId;
+        @Column(name = "month")
+        LocalDate startOfMonth;
+    }
+}
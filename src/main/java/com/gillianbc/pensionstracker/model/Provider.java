@@ -1,16 +1,20 @@
 package com.gillianbc.pensionstracker.model;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Data
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Provider {
     @Id
-    @GeneratedValue
+    @PooledSequenceId(sequenceName = "provider_seq")
     Long id;
     @Column(nullable=false) String name;
     String notes;
@@ -7,9 +7,10 @@ import java.time.LocalDate;
 
 @Data
 @Entity
+@Table(indexes = @Index(name = "snapshot_pot_id_date_idx", columnList = "pot_id, date"))
 public class Snapshot {
     @Id
-    @GeneratedValue
+    @PooledSequenceId(sequenceName = "snapshot_seq")
     Long id;
     @ManyToOne(fetch = FetchType.LAZY) Pot pot;
     @Column(nullable=false)
@@ -7,9 +7,10 @@ import java.time.LocalDate;
 
 @Data
 @Entity
+@Table(indexes = @Index(name = "transaction_pot_id_date_idx", columnList = "pot_id, date"))
 public class Transaction {
     @Id
-    @GeneratedValue
+    @PooledSequenceId(sequenceName = "transaction_seq")
     Long id;
     @ManyToOne(fetch = FetchType.LAZY) Pot pot;
     @Column(nullable=false)
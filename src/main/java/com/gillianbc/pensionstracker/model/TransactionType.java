@@ -0,0 +1,73 @@
+package com.gillianbc.pensionstracker.model;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The known values of {@link Transaction#getType()}, resolved once so that callers can
+ * classify a transaction without string switches or {@code toLowerCase()} copies.
+ */
+public enum TransactionType {
+    CONTRIBUTION("contribution"),
+    REBATE("rebate"),
+    EMPLOYER_MATCH("employer_match"),
+    TRANSFER_IN("transfer_in"),
+    TRANSFER_OUT("transfer_out"),
+    WITHDRAWAL("withdrawal"),
+    FEE("fee"),
+    ADJUSTMENT("adjustment"),
+    OTHER(null);
+
+    private static final TransactionType[] VALUES = values();
+    private static final List<String> EXTERNAL_FLOW_CODES = Arrays.stream(VALUES)
+            .filter(TransactionType::isExternalFlow)
+            .map(TransactionType::getCode)
+            .toList();
+
+    private final String code;
+
+    TransactionType(String code) {
+        this.code = code;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * Money paid into the pot: contributions, employer matches and transfers in.
+     */
+    public boolean isInflow() {
+        return this == CONTRIBUTION || this == EMPLOYER_MATCH || this == TRANSFER_IN;
+    }
+
+    /**
+     * Money moving between the saver and the pot, as opposed to the pot's own performance:
+     * inflows, rebates, transfers out and withdrawals. Fees, adjustments and unknown types are
+     * treated as part of the return.
+     */
+    public boolean isExternalFlow() {
+        return isInflow() || this == REBATE || this == TRANSFER_OUT || this == WITHDRAWAL;
+    }
+
+    /**
+     * The lower-case codes of the types that are {@link #isExternalFlow() external flows}.
+     */
+    public static List<String> externalFlowCodes() {
+        return EXTERNAL_FLOW_CODES;
+    }
+
+    /**
+     * Resolves a stored type code, ignoring case. Unrecognised or null codes resolve to {@link #OTHER}.
+     */
+    public static TransactionType fromCode(String code) {
+        if (code != null) {
+            for (TransactionType type : VALUES) {
+                if (code.equalsIgnoreCase(type.code)) {
+                    return type;
+                }
+            }
+        }
+        return OTHER;
+    }
+}
@@ -0,0 +1,119 @@
+package com.gillianbc.pensionstracker.repo;
+
+import com.gillianbc.pensionstracker.model.PotMonthlyRollup;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface PotMonthlyRollupRepo extends JpaRepository<PotMonthlyRollup, PotMonthlyRollup.PotMonth> {
+
+    List<PotMonthlyRollup> findByIdPotIdAndIdStartOfMonthBetweenOrderByIdStartOfMonth(Long potId, LocalDate from, LocalDate to);
+
+    // Adds one month's transaction amounts to the month's row, creating it if needed.
+    // Native updates name the tables they touch (HINT_NATIVE_SPACES); without that Hibernate
+    // assumes they could touch anything and empties the second-level cache on every write.
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "pot_monthly_rollup"))
+    @Query(value = "insert into pot_monthly_rollup (pot_id, month, contributions, employer_match, transfers_in, " +
+            "rebates, transfers_out, withdrawals, fees, other_flows, net_flows) " +
+            "values (:potId, :month, :contributions, :employerMatch, :transfersIn, " +
+            ":rebates, :transfersOut, :withdrawals, :fees, :otherFlows, :netFlows) " +
+            "on conflict (pot_id, month) do update set " +
+            "contributions = pot_monthly_rollup.contributions + excluded.contributions, " +
+            "employer_match = pot_monthly_rollup.employer_match + excluded.employer_match, " +
+            "transfers_in = pot_monthly_rollup.transfers_in + excluded.transfers_in, " +
+            "rebates = pot_monthly_rollup.rebates + excluded.rebates, " +
+            "transfers_out = pot_monthly_rollup.transfers_out + excluded.transfers_out, " +
+            "withdrawals = pot_monthly_rollup.withdrawals + excluded.withdrawals, " +
+            "fees = pot_monthly_rollup.fees + excluded.fees, " +
+            "other_flows = pot_monthly_rollup.other_flows + excluded.other_flows, " +
+            "net_flows = pot_monthly_rollup.net_flows + excluded.net_flows",
+            nativeQuery = true)
+    void addFlows(@Param("potId") Long potId, @Param("month") LocalDate month,
+                  @Param("contributions") double contributions, @Param("employerMatch") double employerMatch,
+                  @Param("transfersIn") double transfersIn, @Param("rebates") double rebates,
+                  @Param("transfersOut") double transfersOut, @Param("withdrawals") double withdrawals,
+                  @Param("fees") double fees, @Param("otherFlows") double otherFlows,
+                  @Param("netFlows") double netFlows);
+
+    // Sets the month's closing balance unless a later snapshot already has; ties go to the newer write
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "pot_monthly_rollup"))
+    @Query(value = "insert into pot_monthly_rollup (pot_id, month, closing_date, closing_balance, contributions, " +
+            "employer_match, transfers_in, rebates, transfers_out, withdrawals, fees, other_flows, net_flows) " +
+            "values (:potId, :month, :date, :balance, 0, 0, 0, 0, 0, 0, 0, 0, 0) " +
+            "on conflict (pot_id, month) do update set " +
+            "closing_date = excluded.closing_date, closing_balance = excluded.closing_balance " +
+            "where pot_monthly_rollup.closing_date is null or pot_monthly_rollup.closing_date <= excluded.closing_date",
+            nativeQuery = true)
+    void recordClosing(@Param("potId") Long potId, @Param("month") LocalDate month,
+                       @Param("date") LocalDate date, @Param("balance") double balance);
+
+    // Sums every month of the pot; all null if it has no rows
+    @Query("select sum(r.contributions) as contributions, sum(r.employerMatch) as employerMatch, " +
+            "sum(r.transfersIn) as transfersIn, sum(r.rebates) as rebates, sum(r.transfersOut) as transfersOut, " +
+            "sum(r.withdrawals) as withdrawals, sum(r.fees) as fees, sum(r.otherFlows) as otherFlows " +
+            "from PotMonthlyRollup r where r.id.potId = :potId")
+    RollupTotals sumByPotId(@Param("potId") Long potId);
+
+    @Modifying
+    @Query("delete from PotMonthlyRollup r where r.id.potId = :potId")
+    int deleteByPotId(@Param("potId") Long potId);
+
+    // Blocks concurrent upserts until the rebuilding transaction commits
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "pot_monthly_rollup"))
+    @Query(value = "lock table pot_monthly_rollup in exclusive mode", nativeQuery = true)
+    void lockForRebuild();
+
+    @Query(value = "select exists (select 1 from pot_monthly_rollup)", nativeQuery = true)
+    boolean hasRows();
+
+    // Recomputes every row from the snapshot and transaction tables; run on an emptied table
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "pot_monthly_rollup"))
+    @Query(value = "insert into pot_monthly_rollup (pot_id, month, closing_date, closing_balance, contributions, " +
+            "employer_match, transfers_in, rebates, transfers_out, withdrawals, fees, other_flows, net_flows) " +
+            "select coalesce(s.pot_id, f.pot_id), coalesce(s.month, f.month), s.date, s.balance, " +
+            "coalesce(f.contributions, 0), coalesce(f.employer_match, 0), coalesce(f.transfers_in, 0), " +
+            "coalesce(f.rebates, 0), coalesce(f.transfers_out, 0), coalesce(f.withdrawals, 0), " +
+            "coalesce(f.fees, 0), coalesce(f.other_flows, 0), coalesce(f.net_flows, 0) " +
+            "from (select pot_id, month, date, balance from (" +
+            "  select pot_id, cast(date_trunc('month', date) as date) as month, date, balance, " +
+            "  row_number() over (partition by pot_id, date_trunc('month', date) order by date desc, id desc) as rn " +
+            "  from snapshot where pot_id is not null) ranked where rn = 1) s " +
+            "full outer join (" +
+            "  select pot_id, cast(date_trunc('month', date) as date) as month, " +
+            "  sum(case when lower(type) = 'contribution' then amount else 0 end) as contributions, " +
+            "  sum(case when lower(type) = 'employer_match' then amount else 0 end) as employer_match, " +
+            "  sum(case when lower(type) = 'transfer_in' then amount else 0 end) as transfers_in, " +
+            "  sum(case when lower(type) = 'rebate' then amount else 0 end) as rebates, " +
+            "  sum(case when lower(type) = 'transfer_out' then amount else 0 end) as transfers_out, " +
+            "  sum(case when lower(type) = 'withdrawal' then amount else 0 end) as withdrawals, " +
+            "  sum(case when lower(type) = 'fee' then amount else 0 end) as fees, " +
+            "  sum(case when lower(type) in ('contribution', 'employer_match', 'transfer_in', 'rebate', " +
+            "    'transfer_out', 'withdrawal', 'fee') then 0 else amount end) as other_flows, " +
+            "  sum(amount) as net_flows " +
+            "  from transaction where pot_id is not null group by 1, 2) f " +
+            "on s.pot_id = f.pot_id and s.month = f.month",
+            nativeQuery = true)
+    int rebuildAll();
+
+    interface RollupTotals {
+        Double getContributions();
+        Double getEmployerMatch();
+        Double getTransfersIn();
+        Double getRebates();
+        Double getTransfersOut();
+        Double getWithdrawals();
+        Double getFees();
+        Double getOtherFlows();
+    }
+}
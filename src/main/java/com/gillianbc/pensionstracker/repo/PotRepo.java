@@ -1,6 +1,93 @@
 package com.gillianbc.pensionstracker.repo;
 
+import com.gillianbc.pensionstracker.dto.PotDto;
 import com.gillianbc.pensionstracker.model.Pot;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface PotRepo extends JpaRepository<Pot,Long>{}
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface PotRepo extends JpaRepository<Pot,Long>{
+    @Query("select p.id from Pot p order by p.id")
+    List<Long> findAllIds();
+
+    @Query("select p.id from Pot p where p.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * The pots whose plan number or name is one of {@code keys}, for matching import sheets to pots.
+     */
+    @Query("select p.id as id, p.name as name, p.planNumber as planNumber from Pot p "
+            + "where p.planNumber in :keys or p.name in :keys")
+    List<ImportTarget> findImportTargets(@Param("keys") Collection<String> keys);
+
+    interface ImportTarget {
+        Long getId();
+
+        String getName();
+
+        String getPlanNumber();
+    }
+
+    // The earliest and latest snapshot or transaction date of the pot; both null if it has neither.
+    // Four min/max lookups, each a single probe of a (pot_id, date) index.
+    @Query(value = "select least((select min(date) from snapshot where pot_id = :potId), "
+            + "(select min(date) from transaction where pot_id = :potId)) as \"firstDate\", "
+            + "greatest((select max(date) from snapshot where pot_id = :potId), "
+            + "(select max(date) from transaction where pot_id = :potId)) as \"lastDate\"",
+            nativeQuery = true)
+    DateRange findDateRange(@Param("potId") Long potId);
+
+    interface DateRange {
+        LocalDate getFirstDate();
+
+        LocalDate getLastDate();
+    }
+
+    // DTO projections: one statement however many pots, and the provider is never loaded.
+    // Read-only transactions: no flush before the query and no dirty checking after it.
+    @Transactional(readOnly = true)
+    @Query("""
+            select new com.gillianbc.pensionstracker.dto.PotDto(
+                p.id, pr.id, p.name, p.currency, p.status, p.notes, p.planNumber, p.schemeNumber)
+            from Pot p left join p.provider pr
+            order by p.id""")
+    List<PotDto> findAllDtos();
+
+    @Transactional(readOnly = true)
+    @Query("""
+            select new com.gillianbc.pensionstracker.dto.PotDto(
+                p.id, pr.id, p.name, p.currency, p.status, p.notes, p.planNumber, p.schemeNumber)
+            from Pot p left join p.provider pr
+            where p.id = :id""")
+    Optional<PotDto> findDtoById(@Param("id") Long id);
+
+    // Keyset page: the rows after the given id, in id order
+    @Transactional(readOnly = true)
+    @Query("""
+            select new com.gillianbc.pensionstracker.dto.PotDto(
+                p.id, pr.id, p.name, p.currency, p.status, p.notes, p.planNumber, p.schemeNumber)
+            from Pot p left join p.provider pr
+            where p.id > :after
+            order by p.id""")
+    List<PotDto> findDtosAfter(@Param("after") long after, Limit limit);
+
+    // Read off a JDBC cursor; must be consumed inside a transaction and closed
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+            select new com.gillianbc.pensionstracker.dto.PotDto(
+                p.id, pr.id, p.name, p.currency, p.status, p.notes, p.planNumber, p.schemeNumber)
+            from Pot p left join p.provider pr
+            order by p.id""")
+    Stream<PotDto> streamAllDtos();
+}
@@ -1,6 +1,41 @@
 package com.gillianbc.pensionstracker.repo;
 
+import com.gillianbc.pensionstracker.dto.ProviderDto;
 import com.gillianbc.pensionstracker.model.Provider;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface ProviderRepo extends JpaRepository<Provider,Long>{}
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface ProviderRepo extends JpaRepository<Provider,Long>{
+    // DTO projections in read-only transactions: no entity is loaded, flushed or dirty-checked
+    @Transactional(readOnly = true)
+    @Query("select new com.gillianbc.pensionstracker.dto.ProviderDto(p.id, p.name, p.notes) " +
+            "from Provider p order by p.id")
+    List<ProviderDto> findAllDtos();
+
+    @Transactional(readOnly = true)
+    @Query("select new com.gillianbc.pensionstracker.dto.ProviderDto(p.id, p.name, p.notes) " +
+            "from Provider p where p.id = :id")
+    Optional<ProviderDto> findDtoById(@Param("id") Long id);
+
+    // Keyset page: the rows after the given id, in id order
+    @Transactional(readOnly = true)
+    @Query("select new com.gillianbc.pensionstracker.dto.ProviderDto(p.id, p.name, p.notes) " +
+            "from Provider p where p.id > :after order by p.id")
+    List<ProviderDto> findDtosAfter(@Param("after") long after, Limit limit);
+
+    // Read off a JDBC cursor; must be consumed inside a transaction and closed
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.gillianbc.pensionstracker.dto.ProviderDto(p.id, p.name, p.notes) " +
+            "from Provider p order by p.id")
+    Stream<ProviderDto> streamAllDtos();
+}
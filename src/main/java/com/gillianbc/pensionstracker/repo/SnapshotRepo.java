@@ -1,10 +1,56 @@
 package com.gillianbc.pensionstracker.repo;
 
+import com.gillianbc.pensionstracker.dto.SnapshotDto;
 import com.gillianbc.pensionstracker.model.Snapshot;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 public interface SnapshotRepo extends JpaRepository<Snapshot,Long>{
     List<Snapshot> findByPotIdOrderByDate(Long potId);
+    List<Snapshot> findByPotIdAndDateAfterOrderByDate(Long potId, LocalDate after);
+
+    // DTO projection in a read-only transaction: no entity is loaded, flushed or dirty-checked,
+    // and s.pot.id is read from the foreign key without joining the pot
+    @Transactional(readOnly = true)
+    @Query("select new com.gillianbc.pensionstracker.dto.SnapshotDto(" +
+            "s.id, s.pot.id, s.date, s.balance, s.source, s.note) from Snapshot s where s.id = :id")
+    Optional<SnapshotDto> findDtoById(@Param("id") Long id);
+
+    // Projections: only the date and balance columns are selected, no entity is loaded
+    Optional<BalancePoint> findFirstByPotIdOrderByDateAsc(Long potId);
+    Optional<BalancePoint> findFirstByPotIdOrderByDateDesc(Long potId);
+
+    // The last snapshot in each date_trunc() bucket ('day', 'week', 'month', ...) of [from, to]
+    @Query(value = "select date, balance from (" +
+            "select s.date, s.balance, row_number() over (" +
+            "partition by date_trunc(:bucket, s.date) order by s.date desc, s.id desc) as rn " +
+            "from snapshot s where s.pot_id = :potId and s.date between :from and :to) last_in_bucket " +
+            "where rn = 1 order by date",
+            nativeQuery = true)
+    List<BalancePoint> findLastInEachBucket(@Param("potId") Long potId,
+                                            @Param("bucket") String bucket,
+                                            @Param("from") LocalDate from,
+                                            @Param("to") LocalDate to);
+
+    // Deletes at most `limit` of the pot's snapshots and returns how many went
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "snapshot"))
+    @Query(value = "delete from snapshot where id in (select id from snapshot where pot_id = :potId limit :limit)",
+            nativeQuery = true)
+    int deleteChunkByPotId(@Param("potId") Long potId, @Param("limit") int limit);
+
+    interface BalancePoint {
+        LocalDate getDate();
+        Double getBalance();
+    }
 }
@@ -1,10 +1,60 @@
 package com.gillianbc.pensionstracker.repo;
 
+import com.gillianbc.pensionstracker.dto.TransactionDto;
 import com.gillianbc.pensionstracker.model.Transaction;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface TransactionRepo extends JpaRepository<Transaction,Long> {
     List<Transaction> findByPotIdOrderByDate(Long potId);
+    List<Transaction> findByPotIdAndDateAfterOrderByDate(Long potId, LocalDate after);
+
+    // DTO projection in a read-only transaction: no entity is loaded, flushed or dirty-checked,
+    // and t.pot.id is read from the foreign key without joining the pot
+    @Transactional(readOnly = true)
+    @Query("select new com.gillianbc.pensionstracker.dto.TransactionDto(" +
+            "t.id, t.pot.id, t.date, t.type, t.amount, t.note) from Transaction t where t.id = :id")
+    Optional<TransactionDto> findDtoById(@Param("id") Long id);
+
+    // One row per day with flows of the given (lower-case) types in (after, upTo], in date order
+    @Query("select t.date as date, sum(t.amount) as total from Transaction t " +
+            "where t.pot.id = :potId and lower(t.type) in :types and t.date > :after and t.date <= :upTo " +
+            "group by t.date order by t.date")
+    List<DatedTotal> sumAmountsByDate(@Param("potId") Long potId,
+                                      @Param("types") Collection<String> types,
+                                      @Param("after") LocalDate after,
+                                      @Param("upTo") LocalDate upTo);
+
+    // Summed amounts per date_trunc() bucket of [from, to], keyed by the bucket's first day
+    @Query(value = "select cast(date_trunc(:bucket, t.date) as date) as date, sum(t.amount) as total " +
+            "from transaction t where t.pot_id = :potId and t.date between :from and :to " +
+            "group by 1 order by 1",
+            nativeQuery = true)
+    List<DatedTotal> sumAmountsByBucket(@Param("potId") Long potId,
+                                        @Param("bucket") String bucket,
+                                        @Param("from") LocalDate from,
+                                        @Param("to") LocalDate to);
+
+    // Deletes at most `limit` of the pot's transactions and returns how many went
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "transaction"))
+    @Query(value = "delete from transaction where id in (select id from transaction where pot_id = :potId limit :limit)",
+            nativeQuery = true)
+    int deleteChunkByPotId(@Param("potId") Long potId, @Param("limit") int limit);
+
+    interface DatedTotal {
+        LocalDate getDate();
+        Double getTotal();
+    }
 }
@@ -0,0 +1,22 @@
+package com.gillianbc.pensionstracker.repo.reactive;
+
+import com.gillianbc.pensionstracker.dto.PotDto;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.relational.core.mapping.Table;
+import org.springframework.data.repository.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactivePotRepo extends Repository<ReactivePotRepo.PotRow, Long> {
+    Mono<Boolean> existsById(Long id);
+
+    @Query("select id from pot order by id")
+    Flux<Long> findAllIds();
+
+    @Query("select id, provider_id, name, currency, status, notes, plan_number, scheme_number from pot order by id")
+    Flux<PotDto> findAllDtos();
+
+    @Table("pot")
+    record PotRow(@Id Long id) {}
+}
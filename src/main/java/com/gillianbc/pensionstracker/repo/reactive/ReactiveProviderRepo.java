@@ -0,0 +1,16 @@
+package com.gillianbc.pensionstracker.repo.reactive;
+
+import com.gillianbc.pensionstracker.dto.ProviderDto;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.relational.core.mapping.Table;
+import org.springframework.data.repository.Repository;
+import reactor.core.publisher.Flux;
+
+public interface ReactiveProviderRepo extends Repository<ReactiveProviderRepo.ProviderRow, Long> {
+    @Query("select id, name, notes from provider order by id")
+    Flux<ProviderDto> findAllDtos();
+
+    @Table("provider")
+    record ProviderRow(@Id Long id) {}
+}
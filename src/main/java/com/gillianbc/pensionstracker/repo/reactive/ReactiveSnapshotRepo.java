@@ -0,0 +1,24 @@
+package com.gillianbc.pensionstracker.repo.reactive;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+import org.springframework.data.repository.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+/**
+ * Non-blocking reads of snapshots, mirroring the queries of
+ * {@link com.gillianbc.pensionstracker.repo.SnapshotRepo} that the reports use.
+ */
+public interface ReactiveSnapshotRepo extends Repository<ReactiveSnapshotRepo.SnapshotRow, Long> {
+    Flux<SnapshotRow> findByPotIdOrderByDate(Long potId);
+    Flux<SnapshotRow> findByPotIdAndDateAfterOrderByDate(Long potId, LocalDate after);
+
+    Mono<SnapshotRow> findFirstByPotIdOrderByDateAsc(Long potId);
+    Mono<SnapshotRow> findFirstByPotIdOrderByDateDesc(Long potId);
+
+    @Table("snapshot")
+    record SnapshotRow(@Id Long id, Long potId, LocalDate date, Double balance) {}
+}
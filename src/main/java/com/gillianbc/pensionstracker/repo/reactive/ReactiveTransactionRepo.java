@@ -0,0 +1,20 @@
+package com.gillianbc.pensionstracker.repo.reactive;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+import org.springframework.data.repository.Repository;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDate;
+
+/**
+ * Non-blocking reads of transactions, mirroring the queries of
+ * {@link com.gillianbc.pensionstracker.repo.TransactionRepo} that the reports use.
+ */
+public interface ReactiveTransactionRepo extends Repository<ReactiveTransactionRepo.TransactionRow, Long> {
+    Flux<TransactionRow> findByPotIdOrderByDate(Long potId);
+    Flux<TransactionRow> findByPotIdAndDateAfterOrderByDate(Long potId, LocalDate after);
+
+    @Table("transaction")
+    record TransactionRow(@Id Long id, Long potId, LocalDate date, String type, Double amount) {}
+}
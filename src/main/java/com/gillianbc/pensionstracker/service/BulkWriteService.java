@@ -0,0 +1,251 @@
+package com.gillianbc.pensionstracker.service;
+
+import com.gillianbc.pensionstracker.dto.BulkResultDto;
+import com.gillianbc.pensionstracker.dto.BulkResultDto.BulkErrorDto;
+import com.gillianbc.pensionstracker.dto.SnapshotDto;
+import com.gillianbc.pensionstracker.dto.TransactionDto;
+import com.gillianbc.pensionstracker.model.Snapshot;
+import com.gillianbc.pensionstracker.model.Transaction;
+import com.gillianbc.pensionstracker.repo.PotRepo;
+import com.gillianbc.pensionstracker.repo.SnapshotRepo;
+import com.gillianbc.pensionstracker.repo.TransactionRepo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Creates snapshots and transactions in bulk.
+ * <p>
+ * Records are read in chunks of {@code pensions.import.batch-size}. Each distinct pot is looked
+ * up once per request, and each chunk is saved as JDBC batches in its own transaction, so a
+ * failure only loses that chunk. Ids in the incoming records are ignored: every record is
+ * created as new.
+ */
+@Service
+public class BulkWriteService {
+
+    private final PotRepo potRepo;
+    private final SnapshotRepo snapshotRepo;
+    private final TransactionRepo transactionRepo;
+    private final MonthlyRollupService rollups;
+    private final ReportCache reportCache;
+    private final TransactionTemplate tx;
+    private final int batchSize;
+
+    public BulkWriteService(PotRepo potRepo,
+                            SnapshotRepo snapshotRepo,
+                            TransactionRepo transactionRepo,
+                            MonthlyRollupService rollups,
+                            ReportCache reportCache,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${pensions.import.batch-size:500}") int batchSize) {
+        this.potRepo = potRepo;
+        this.snapshotRepo = snapshotRepo;
+        this.transactionRepo = transactionRepo;
+        this.rollups = rollups;
+        this.reportCache = reportCache;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    public BulkResultDto saveSnapshots(Iterator<SnapshotDto> records) {
+        return new BulkWrite<>(records, SnapshotDto::potId, this::validate, this::saveSnapshotChunk).run();
+    }
+
+    public BulkResultDto saveTransactions(Iterator<TransactionDto> records) {
+        return new BulkWrite<>(records, TransactionDto::potId, this::validate, this::saveTransactionChunk).run();
+    }
+
+    private String validate(SnapshotDto dto) {
+        if (dto.date() == null) return "date is required";
+        if (dto.balance() == null) return "balance is required";
+        return null;
+    }
+
+    private String validate(TransactionDto dto) {
+        if (dto.date() == null) return "date is required";
+        if (dto.type() == null || dto.type().isBlank()) return "type is required";
+        if (dto.amount() == null) return "amount is required";
+        return null;
+    }
+
+    private List<Long> saveSnapshotChunk(List<SnapshotDto> chunk) {
+        return tx.execute(status -> {
+            List<Snapshot> entities = new ArrayList<>(chunk.size());
+            for (SnapshotDto dto : chunk) {
+                Snapshot s = new Snapshot();
+                s.setPot(potRepo.getReferenceById(dto.potId()));
+                s.setDate(dto.date());
+                s.setBalance(dto.balance());
+                s.setSource(dto.source());
+                s.setNote(dto.note());
+                entities.add(s);
+            }
+            List<Snapshot> saved = snapshotRepo.saveAll(entities);
+            rollups.recordSnapshots(saved);
+            List<Long> ids = new ArrayList<>(saved.size());
+            for (Snapshot s : saved) {
+                ids.add(s.getId());
+            }
+            evictReports(chunk, SnapshotDto::potId, SnapshotDto::date);
+            return ids;
+        });
+    }
+
+    private List<Long> saveTransactionChunk(List<TransactionDto> chunk) {
+        return tx.execute(status -> {
+            List<Transaction> entities = new ArrayList<>(chunk.size());
+            for (TransactionDto dto : chunk) {
+                Transaction t = new Transaction();
+                t.setPot(potRepo.getReferenceById(dto.potId()));
+                t.setDate(dto.date());
+                t.setType(dto.type());
+                t.setAmount(dto.amount());
+                t.setNote(dto.note());
+                entities.add(t);
+            }
+            List<Transaction> saved = transactionRepo.saveAll(entities);
+            rollups.recordTransactions(saved);
+            List<Long> ids = new ArrayList<>(saved.size());
+            for (Transaction t : saved) {
+                ids.add(t.getId());
+            }
+            evictReports(chunk, TransactionDto::potId, TransactionDto::date);
+            return ids;
+        });
+    }
+
+    // One eviction per pot, with the earliest date written to it
+    private <T> void evictReports(List<T> chunk, Function<T, Long> potId, Function<T, LocalDate> date) {
+        Map<Long, LocalDate> earliest = new HashMap<>();
+        for (T record : chunk) {
+            earliest.merge(potId.apply(record), date.apply(record),
+                    (a, b) -> a.isBefore(b) ? a : b);
+        }
+        earliest.forEach(reportCache::evict);
+    }
+
+    /**
+     * State for one bulk request: reads a chunk, checks pots and fields, saves what is valid.
+     */
+    private final class BulkWrite<T> {
+        private final Iterator<T> records;
+        private final Function<T, Long> potId;
+        private final Function<T, String> validator;
+        private final Function<List<T>, List<Long>> saver;
+
+        private final Map<Long, Boolean> potExists = new HashMap<>();
+        private final List<Long> ids = new ArrayList<>();
+        private final List<BulkErrorDto> errors = new ArrayList<>();
+        private int created;
+
+        private BulkWrite(Iterator<T> records, Function<T, Long> potId,
+                          Function<T, String> validator, Function<List<T>, List<Long>> saver) {
+            this.records = records;
+            this.potId = potId;
+            this.validator = validator;
+            this.saver = saver;
+        }
+
+        BulkResultDto run() {
+            List<T> chunk = new ArrayList<>(batchSize);
+            boolean more = true;
+            while (more) {
+                chunk.clear();
+                more = readChunk(chunk);
+                writeChunk(chunk);
+            }
+            return new BulkResultDto(ids.size(), created, ids, errors);
+        }
+
+        /**
+         * @return false once the input is exhausted, or cannot be read any further
+         */
+        private boolean readChunk(List<T> chunk) {
+            try {
+                while (chunk.size() < batchSize && records.hasNext()) {
+                    chunk.add(records.next());
+                }
+                return chunk.size() == batchSize;
+            } catch (RuntimeException e) {
+                // Malformed input: keep what was read so far and stop
+                errors.add(new BulkErrorDto(ids.size() + chunk.size(), "unreadable record: " + e.getMessage()));
+                return false;
+            }
+        }
+
+        private void writeChunk(List<T> chunk) {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            resolvePots(chunk);
+
+            int firstIndex = ids.size();
+            List<T> valid = new ArrayList<>(chunk.size());
+            List<Integer> validIndexes = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                T record = chunk.get(i);
+                String error = check(record);
+                ids.add(null);
+                if (error != null) {
+                    errors.add(new BulkErrorDto(firstIndex + i, error));
+                } else {
+                    valid.add(record);
+                    validIndexes.add(firstIndex + i);
+                }
+            }
+            if (valid.isEmpty()) {
+                return;
+            }
+
+            try {
+                List<Long> savedIds = saver.apply(valid);
+                for (int i = 0; i < savedIds.size(); i++) {
+                    ids.set(validIndexes.get(i), savedIds.get(i));
+                }
+                created += savedIds.size();
+            } catch (RuntimeException e) {
+                for (Integer index : validIndexes) {
+                    errors.add(new BulkErrorDto(index, "not saved: " + e.getMessage()));
+                }
+            }
+        }
+
+        private String check(T record) {
+            if (record == null) return "record is empty";
+            Long id = potId.apply(record);
+            if (id == null) return "potId is required";
+            if (!potExists.get(id)) return "Pot not found: " + id;
+            return validator.apply(record);
+        }
+
+        // One query for the pots in this chunk that have not been seen earlier in the request
+        private void resolvePots(List<T> chunk) {
+            Set<Long> unseen = new HashSet<>();
+            for (T record : chunk) {
+                Long id = record == null ? null : potId.apply(record);
+                if (id != null && !potExists.containsKey(id)) {
+                    unseen.add(id);
+                }
+            }
+            if (unseen.isEmpty()) {
+                return;
+            }
+            Set<Long> found = new HashSet<>(potRepo.findExistingIds(unseen));
+            for (Long id : unseen) {
+                potExists.put(id, found.contains(id));
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.gillianbc.pensionstracker.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Streams the rows of a CSV file, reporting the first two columns of each to the same
+ * {@link XlsxSheetReader.RowHandler} the spreadsheet import uses. The row number passed is the
+ * zero-based line the record starts on, so messages built from it point at the line an editor
+ * shows, even after blank lines or quoted fields spanning several lines.
+ * <p>
+ * Follows RFC 4180: fields may be quoted, a quoted field may contain commas, line breaks and
+ * doubled quotes ({@code ""}), and lines may end in CRLF or LF. A leading UTF-8 byte order mark,
+ * as Excel writes, is skipped, and blank lines are ignored. Characters are scanned once through a
+ * fixed buffer, and only the first two fields of a row are ever built into strings, so a wide or
+ * very long file costs no more heap than a short one.
+ */
+public final class CsvReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final char BOM = '\uFEFF';
+
+    private CsvReader() {
+    }
+
+    public static void read(File file, XlsxSheetReader.RowHandler handler) throws IOException {
+        try (Reader in = new InputStreamReader(Files.newInputStream(file.toPath()), StandardCharsets.UTF_8)) {
+            read(in, handler);
+        }
+    }
+
+    /**
+     * Reads {@code in} through its own buffer, so it needn't be a BufferedReader.
+     *
+     * @throws IOException if the input ends inside a quoted field
+     */
+    public static void read(Reader in, XlsxSheetReader.RowHandler handler) throws IOException {
+        char[] buf = new char[BUFFER_SIZE];
+        StringBuilder field = new StringBuilder();
+        String first = "";
+        String second = "";
+        int column = 0;
+        int line = 0;       // zero-based physical line of the current character
+        int recordLine = 0; // line the current record started on
+        boolean inQuotes = false;
+        boolean quoteInQuotes = false; // just saw a quote inside a quoted field: closing or doubled
+        boolean fieldStarted = false;
+        boolean lineHasContent = false;
+        boolean previousWasCr = false;
+        boolean start = true;
+
+        int n;
+        while ((n = in.read(buf)) != -1) {
+            for (int i = 0; i < n; i++) {
+                char c = buf[i];
+                if (start) {
+                    start = false;
+                    if (c == BOM) {
+                        continue;
+                    }
+                }
+                // CRLF ends one line, and so does a lone CR or LF, inside quotes or not
+                boolean crlf = c == '\n' && previousWasCr;
+                previousWasCr = c == '\r';
+                if (c == '\r' || (c == '\n' && !crlf)) {
+                    line++;
+                }
+                if (inQuotes) {
+                    if (quoteInQuotes) {
+                        quoteInQuotes = false;
+                        if (c == '"') {
+                            append(field, column, c);
+                            continue;
+                        }
+                        inQuotes = false; // that quote closed the field; handle c as unquoted
+                    } else if (c == '"') {
+                        quoteInQuotes = true;
+                        continue;
+                    } else {
+                        append(field, column, c);
+                        continue;
+                    }
+                }
+
+                if (crlf) {
+                    continue;
+                }
+                if (c == '\r' || c == '\n') {
+                    if (lineHasContent) {
+                        if (column == 0) first = field.toString();
+                        else if (column == 1) second = field.toString();
+                        handler.row(recordLine, first, second);
+                    }
+                    field.setLength(0);
+                    first = "";
+                    second = "";
+                    column = 0;
+                    fieldStarted = false;
+                    lineHasContent = false;
+                    continue;
+                }
+                if (!lineHasContent) {
+                    recordLine = line;
+                    lineHasContent = true;
+                }
+                if (c == ',') {
+                    if (column == 0) first = field.toString();
+                    else if (column == 1) second = field.toString();
+                    field.setLength(0);
+                    column++;
+                    fieldStarted = false;
+                } else if (c == '"' && !fieldStarted) {
+                    inQuotes = true;
+                    fieldStarted = true;
+                } else {
+                    append(field, column, c);
+                    fieldStarted = true;
+                }
+            }
+        }
+
+        if (inQuotes && !quoteInQuotes) {
+            throw new IOException("CSV ends inside a quoted field starting on line " + (recordLine + 1));
+        }
+        if (lineHasContent) {
+            if (column == 0) first = field.toString();
+            else if (column == 1) second = field.toString();
+            handler.row(recordLine, first, second);
+        }
+    }
+
+    // Only the first two columns are kept
+    private static void append(StringBuilder field, int column, char c) {
+        if (column < 2) {
+            field.append(c);
+        }
+    }
+}
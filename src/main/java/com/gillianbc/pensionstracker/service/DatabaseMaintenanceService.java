@@ -1,35 +1,105 @@
 package com.gillianbc.pensionstracker.service;
 
+import com.gillianbc.pensionstracker.dto.PurgeResultDto;
+import com.gillianbc.pensionstracker.repo.PotMonthlyRollupRepo;
 import com.gillianbc.pensionstracker.repo.PotRepo;
 import com.gillianbc.pensionstracker.repo.ProviderRepo;
 import com.gillianbc.pensionstracker.repo.SnapshotRepo;
 import com.gillianbc.pensionstracker.repo.TransactionRepo;
 import jakarta.transaction.Transactional;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-// Import other repositories as needed
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.function.BiFunction;
+
+/**
+ * Admin clears and purges.
+ * <p>
+ * The clears use {@code deleteAllInBatch()}, a single {@code delete from ...} per table, rather
+ * than {@code deleteAll()}, which loads and deletes every entity one at a time. Tables are
+ * cleared children first so no foreign key is violated.
+ */
 @Service
-@RequiredArgsConstructor
 public class DatabaseMaintenanceService {
 
     private final TransactionRepo transactionRepo;
     private final SnapshotRepo snapshotRepo;
     private final PotRepo potRepo;
     private final ProviderRepo providerRepo;
+    private final PotMonthlyRollupRepo rollupRepo;
+    private final ReportCache reportCache;
+    private final TransactionTemplate tx;
+    private final int purgeChunkSize;
+
+    public DatabaseMaintenanceService(TransactionRepo transactionRepo,
+                                      SnapshotRepo snapshotRepo,
+                                      PotRepo potRepo,
+                                      ProviderRepo providerRepo,
+                                      PotMonthlyRollupRepo rollupRepo,
+                                      ReportCache reportCache,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${pensions.maintenance.purge-chunk-size:5000}") int purgeChunkSize) {
+        this.transactionRepo = transactionRepo;
+        this.snapshotRepo = snapshotRepo;
+        this.potRepo = potRepo;
+        this.providerRepo = providerRepo;
+        this.rollupRepo = rollupRepo;
+        this.reportCache = reportCache;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.purgeChunkSize = purgeChunkSize;
+    }
 
     @Transactional
     public void clearAllData() {
-        // Delete all rows from child/linked tables before parents, if applicable.
-        transactionRepo.deleteAll();
-        snapshotRepo.deleteAll();
-        potRepo.deleteAll();
-        providerRepo.deleteAll();
+        rollupRepo.deleteAllInBatch();
+        transactionRepo.deleteAllInBatch();
+        snapshotRepo.deleteAllInBatch();
+        potRepo.deleteAllInBatch();
+        providerRepo.deleteAllInBatch();
+        reportCache.evictAll();
     }
 
+    @Transactional
     public void clearPots() {
-        transactionRepo.deleteAll();
-        snapshotRepo.deleteAll();
-        potRepo.deleteAll();
+        rollupRepo.deleteAllInBatch();
+        transactionRepo.deleteAllInBatch();
+        snapshotRepo.deleteAllInBatch();
+        potRepo.deleteAllInBatch();
+        reportCache.evictAll();
+    }
+
+    /**
+     * Deletes a pot with all its snapshots, transactions and monthly rollups.
+     * <p>
+     * Rows go in chunks of {@code pensions.maintenance.purge-chunk-size}, each in its own short
+     * transaction, so a pot with millions of rows never holds locks for the whole purge. If it
+     * fails part way, what has already been deleted stays deleted and the purge can be re-run.
+     *
+     * @return what was deleted, or null if the pot does not exist
+     */
+    public PurgeResultDto purgePot(Long potId) {
+        if (!potRepo.existsById(potId)) {
+            return null;
+        }
+        long transactions = deleteInChunks(potId, transactionRepo::deleteChunkByPotId);
+        long snapshots = deleteInChunks(potId, snapshotRepo::deleteChunkByPotId);
+        tx.executeWithoutResult(status -> {
+            rollupRepo.deleteByPotId(potId);
+            potRepo.deleteById(potId);
+            reportCache.evict(potId);
+        });
+        return new PurgeResultDto(potId, snapshots, transactions);
+    }
+
+    private long deleteInChunks(Long potId, BiFunction<Long, Integer, Integer> deleteChunk) {
+        long total = 0;
+        int deleted;
+        do {
+            deleted = tx.execute(status -> deleteChunk.apply(potId, purgeChunkSize));
+            total += deleted;
+        } while (deleted == purgeChunkSize);
+        return total;
     }
 }
@@ -0,0 +1,48 @@
+package com.gillianbc.pensionstracker.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.gillianbc.pensionstracker.dto.CacheStatsDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import javax.cache.CacheManager;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import static com.gillianbc.pensionstracker.config.SecondLevelCacheConfig.CACHED_ENTITIES;
+
+/**
+ * Hit ratios of the Hibernate second-level cache regions, one per cached entity, keyed
+ * {@code providers} and {@code pots}. The same names tag their {@code cache.*} meters.
+ */
+@Component
+public class EntityCacheStats implements MeterBinder {
+
+    private final Map<String, Cache<?, ?>> regions = new LinkedHashMap<>();
+
+    public EntityCacheStats(CacheManager entityCacheManager) {
+        for (Class<?> entity : CACHED_ENTITIES) {
+            regions.put(entity.getSimpleName().toLowerCase(Locale.ROOT) + "s",
+                    entityCacheManager.getCache(entity.getName()).unwrap(Cache.class));
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        regions.forEach((name, cache) -> CaffeineCacheMetrics.monitor(registry, cache, name));
+    }
+
+    public Map<String, CacheStatsDto> stats() {
+        Map<String, CacheStatsDto> stats = new LinkedHashMap<>();
+        regions.forEach((name, cache) -> {
+            CacheStats s = cache.stats();
+            stats.put(name, new CacheStatsDto(cache.estimatedSize(), s.hitCount(), s.missCount(),
+                    s.hitRate(), s.evictionCount()));
+        });
+        return stats;
+    }
+}
@@ -0,0 +1,309 @@
+package com.gillianbc.pensionstracker.service;
+
+import com.gillianbc.pensionstracker.dto.ImportJobDto;
+import com.gillianbc.pensionstracker.dto.SheetImportDto;
+import com.gillianbc.pensionstracker.repo.PotRepo;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs imports as background jobs on the {@code importExecutor} pool and keeps track of them.
+ * <p>
+ * Jobs are held in memory only: they are lost on restart, and finished jobs are dropped
+ * {@code pensions.import.job-retention} after they finish. Progress is updated by the worker
+ * after every batch, so a poll sees rows processed, throughput and errors while the job runs.
+ */
+@Service
+public class ImportJobService {
+
+    public enum Status { QUEUED, RUNNING, SUCCEEDED, FAILED }
+
+    private final PotRepo potRepo;
+    private final SnapshotImportService snapshotImportService;
+    private final WorkbookImportService workbookImportService;
+    private final TaskExecutor importExecutor;
+    private final Duration retention;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    public ImportJobService(PotRepo potRepo,
+                            SnapshotImportService snapshotImportService,
+                            WorkbookImportService workbookImportService,
+                            @Qualifier("importExecutor") TaskExecutor importExecutor,
+                            @Value("${pensions.import.job-retention:1h}") Duration retention) {
+        this.potRepo = potRepo;
+        this.snapshotImportService = snapshotImportService;
+        this.workbookImportService = workbookImportService;
+        this.importExecutor = importExecutor;
+        this.retention = retention;
+    }
+
+    /**
+     * Queues an import of the first sheet of an .xlsx file into a pot.
+     *
+     * @return the new job, still QUEUED
+     * @throws EntityNotFoundException if the pot does not exist
+     * @throws TaskRejectedException   if the import pool and its queue are full
+     */
+    public ImportJobDto submitExcel(Long potId, File file) {
+        checkPotExists(potId);
+        return submit(potId, file.getName(),
+                progress -> snapshotImportService.importFile(potId, file, SnapshotImportService.Format.XLSX, progress));
+    }
+
+    /**
+     * Spools an uploaded file to a temp file and queues its import. The pot is checked before
+     * anything is written, and the temp file is deleted once the job has finished, or straight
+     * away if the job cannot be queued.
+     *
+     * @param source name to report the job under, e.g. the uploaded file name
+     * @param upload writes the upload's bytes to the given path
+     * @throws EntityNotFoundException if the pot does not exist
+     * @throws TaskRejectedException   if the import pool and its queue are full
+     * @throws IOException             if the upload cannot be spooled
+     */
+    public ImportJobDto submitUpload(Long potId, String source, SnapshotImportService.Format format,
+                                     Upload upload) throws IOException {
+        checkPotExists(potId);
+        Path spooled = createSpoolFile(format);
+        try {
+            upload.writeTo(spooled);
+            return submit(potId, source, progress -> {
+                try {
+                    snapshotImportService.importFile(potId, spooled.toFile(), format, progress);
+                } finally {
+                    Files.deleteIfExists(spooled);
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(spooled);
+            throw e;
+        }
+    }
+
+    /**
+     * Queues an import of every sheet of several files on the server, each sheet into the pot it
+     * names (see {@link WorkbookImportService}).
+     *
+     * @throws TaskRejectedException if the import pool and its queue are full
+     */
+    public ImportJobDto submitWorkbooks(List<File> files) {
+        List<WorkbookImportService.Source> sources = new ArrayList<>(files.size());
+        for (File file : files) {
+            sources.add(new WorkbookImportService.Source(file, file.getName(),
+                    SnapshotImportService.Format.of(null, file.getName())));
+        }
+        return submit(null, describe(sources), progress -> workbookImportService.importFiles(sources, progress));
+    }
+
+    /**
+     * As {@link #submitWorkbooks}, for uploaded files. Each is spooled to a temp file first, and
+     * they are all deleted once the job has finished, or straight away if it cannot be queued.
+     *
+     * @throws TaskRejectedException if the import pool and its queue are full
+     * @throws IOException           if an upload cannot be spooled
+     */
+    public ImportJobDto submitWorkbookUploads(List<UploadedFile> uploads) throws IOException {
+        List<WorkbookImportService.Source> sources = new ArrayList<>(uploads.size());
+        try {
+            for (UploadedFile upload : uploads) {
+                Path spooled = createSpoolFile(upload.format());
+                sources.add(new WorkbookImportService.Source(spooled.toFile(), upload.name(), upload.format()));
+                upload.upload().writeTo(spooled);
+            }
+            return submit(null, describe(sources), progress -> {
+                try {
+                    workbookImportService.importFiles(sources, progress);
+                } finally {
+                    deleteAll(sources);
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            deleteAll(sources);
+            throw e;
+        }
+    }
+
+    /**
+     * @return the job's current state, or null if there is no such job or it has expired
+     */
+    public ImportJobDto getJob(String jobId) {
+        Job job = jobs.get(jobId);
+        return job == null ? null : job.toDto();
+    }
+
+    // Jobs held: queued, running, or finished and not yet expired
+    int jobCount() {
+        return jobs.size();
+    }
+
+    private void checkPotExists(Long potId) {
+        if (!potRepo.existsById(potId)) {
+            throw new EntityNotFoundException("Pot not found: " + potId);
+        }
+    }
+
+    private ImportJobDto submit(Long potId, String source, ImportTask task) {
+        removeExpired();
+        Job job = new Job(UUID.randomUUID().toString(), potId, source);
+        jobs.put(job.id, job);
+        try {
+            importExecutor.execute(() -> run(job, task));
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.id);
+            throw e;
+        }
+        return job.toDto();
+    }
+
+    private void run(Job job, ImportTask task) {
+        job.start();
+        Status outcome = Status.FAILED;
+        try {
+            task.run(job);
+            outcome = Status.SUCCEEDED;
+        } catch (Exception e) {
+            job.failed(0, "Import failed: " + e.getMessage());
+        } finally {
+            // An Error still propagates to the pool, but the job no longer reads as RUNNING
+            job.finish(outcome);
+        }
+    }
+
+    private static Path createSpoolFile(SnapshotImportService.Format format) throws IOException {
+        return Files.createTempFile("import-", format == SnapshotImportService.Format.CSV ? ".csv" : ".xlsx");
+    }
+
+    private static String describe(List<WorkbookImportService.Source> sources) {
+        return sources.size() == 1 ? sources.get(0).name() : sources.size() + " files";
+    }
+
+    private static void deleteAll(List<WorkbookImportService.Source> sources) throws IOException {
+        for (WorkbookImportService.Source source : sources) {
+            Files.deleteIfExists(source.file().toPath());
+        }
+    }
+
+    private void removeExpired() {
+        Instant cutoff = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+
+    @FunctionalInterface
+    public interface Upload {
+        void writeTo(Path target) throws IOException;
+    }
+
+    /**
+     * One file of a multi-file upload.
+     *
+     * @param name the uploaded file name; for a CSV file, also the name it is matched to a pot by
+     */
+    public record UploadedFile(String name, SnapshotImportService.Format format, Upload upload) {
+    }
+
+    @FunctionalInterface
+    private interface ImportTask {
+        void run(SnapshotImportService.Progress progress) throws Exception;
+    }
+
+    /**
+     * A job's mutable state. Written by the worker running it, and for a multi-file import by its
+     * parsers too, and read by any request thread.
+     */
+    private static final class Job implements SnapshotImportService.Progress {
+        private final String id;
+        private final Long potId;
+        private final String source;
+        private final Instant submittedAt = Instant.now();
+        private final List<String> errors = new ArrayList<>();
+        private final List<SheetImportDto> sheets = new ArrayList<>();
+        private final AtomicInteger rowsImported = new AtomicInteger();
+        private final AtomicInteger rowsFailed = new AtomicInteger();
+        private final AtomicInteger errorCount = new AtomicInteger();
+        private volatile Status status = Status.QUEUED;
+        private volatile Instant startedAt;
+        private volatile Instant finishedAt;
+        private volatile long startNanos;
+        private volatile long elapsedNanos;
+
+        private Job(String id, Long potId, String source) {
+            this.id = id;
+            this.potId = potId;
+            this.source = source;
+        }
+
+        void start() {
+            startNanos = System.nanoTime();
+            startedAt = Instant.now();
+            status = Status.RUNNING;
+        }
+
+        void finish(Status outcome) {
+            elapsedNanos = System.nanoTime() - startNanos;
+            finishedAt = Instant.now();
+            status = outcome;
+        }
+
+        @Override
+        public void imported(int rows) {
+            rowsImported.addAndGet(rows);
+        }
+
+        @Override
+        public void failed(int rows, String error) {
+            synchronized (errors) {
+                if (errors.size() < SnapshotImportService.MAX_ERRORS_KEPT) {
+                    errors.add(error);
+                }
+            }
+            rowsFailed.addAndGet(rows);
+            errorCount.incrementAndGet();
+        }
+
+        @Override
+        public void sheet(SheetImportDto report) {
+            synchronized (sheets) {
+                sheets.add(report);
+            }
+        }
+
+        ImportJobDto toDto() {
+            Status current = status;
+            int imported = rowsImported.get();
+            int processed = imported + rowsFailed.get();
+            long nanos = switch (current) {
+                case QUEUED -> 0;
+                case RUNNING -> System.nanoTime() - startNanos;
+                case SUCCEEDED, FAILED -> elapsedNanos;
+            };
+            double rowsPerSecond = nanos == 0 ? 0 : Math.round(processed * 1_000_000_000.0 / nanos * 10) / 10.0;
+            List<String> errorsSoFar;
+            synchronized (errors) {
+                errorsSoFar = List.copyOf(errors);
+            }
+            List<SheetImportDto> sheetsSoFar;
+            synchronized (sheets) {
+                sheetsSoFar = List.copyOf(sheets);
+            }
+            return new ImportJobDto(id, potId, source, current.name(), submittedAt, startedAt, finishedAt,
+                    processed, imported, rowsPerSecond, errorCount.get(), errorsSoFar, sheetsSoFar);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.gillianbc.pensionstracker.service;
+
+import com.gillianbc.pensionstracker.dto.SheetImportDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Import meters, tagged by {@code kind}: {@code file} for a single spreadsheet or CSV file,
+ * {@code workbooks} for a multi-file import.
+ * <ul>
+ *     <li>{@code pensions.import.rows}: rows written ({@code outcome=imported}) or rejected
+ *     ({@code outcome=rejected}). Its rate is the import throughput across all imports.</li>
+ *     <li>{@code pensions.import.errors}: one per rejected row or failed batch.</li>
+ *     <li>{@code pensions.import.duration}: wall-clock time of each import.</li>
+ *     <li>{@code pensions.import.throughput}: rows per second of each finished import.</li>
+ * </ul>
+ */
+@Component
+public class ImportMetrics {
+
+    public enum Kind { FILE, WORKBOOKS }
+
+    private final Map<Kind, Meters> meters = new EnumMap<>(Kind.class);
+
+    public ImportMetrics(MeterRegistry registry) {
+        for (Kind kind : Kind.values()) {
+            meters.put(kind, new Meters(registry, kind.name().toLowerCase(Locale.ROOT)));
+        }
+    }
+
+    /**
+     * Wraps {@code progress} so that the rows and errors it is told about are counted too.
+     */
+    public SnapshotImportService.Progress counting(Kind kind, SnapshotImportService.Progress progress) {
+        Meters m = meters.get(kind);
+        return new SnapshotImportService.Progress() {
+            @Override
+            public void imported(int rows) {
+                m.imported.increment(rows);
+                progress.imported(rows);
+            }
+
+            @Override
+            public void failed(int rows, String error) {
+                m.rejected.increment(rows);
+                m.errors.increment();
+                progress.failed(rows, error);
+            }
+
+            @Override
+            public void sheet(SheetImportDto report) {
+                progress.sheet(report);
+            }
+        };
+    }
+
+    /**
+     * Records a finished import.
+     *
+     * @param rows rows processed, imported or rejected
+     */
+    public void finished(Kind kind, int rows, long elapsedNanos) {
+        Meters m = meters.get(kind);
+        m.duration.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (elapsedNanos > 0) {
+            m.throughput.record(rows * 1_000_000_000.0 / elapsedNanos);
+        }
+    }
+
+    private static final class Meters {
+        private final Counter imported;
+        private final Counter rejected;
+        private final Counter errors;
+        private final Timer duration;
+        private final DistributionSummary throughput;
+
+        private Meters(MeterRegistry registry, String kind) {
+            imported = Counter.builder("pensions.import.rows")
+                    .description("Rows imported or rejected")
+                    .tags("kind", kind, "outcome", "imported")
+                    .baseUnit("rows")
+                    .register(registry);
+            rejected = Counter.builder("pensions.import.rows")
+                    .description("Rows imported or rejected")
+                    .tags("kind", kind, "outcome", "rejected")
+                    .baseUnit("rows")
+                    .register(registry);
+            errors = Counter.builder("pensions.import.errors")
+                    .description("Rejected rows and failed batches")
+                    .tag("kind", kind)
+                    .register(registry);
+            duration = Timer.builder("pensions.import.duration")
+                    .description("Wall-clock time of each import")
+                    .tag("kind", kind)
+                    .publishPercentileHistogram()
+                    .register(registry);
+            throughput = DistributionSummary.builder("pensions.import.throughput")
+                    .description("Rows per second of each finished import")
+                    .tag("kind", kind)
+                    .baseUnit("rows.per.second")
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.gillianbc.pensionstracker.service;
+
+/**
+ * Largest-Triangle-Three-Buckets downsampling (Steinarsson, 2013).
+ * <p>
+ * Keeps the first and last points and, from each of {@code threshold - 2} equal buckets in
+ * between, the point forming the largest triangle with the point kept before it and the average
+ * of the next bucket. Peaks and troughs survive, so a chart of the result looks like a chart of
+ * the whole series.
+ */
+final class Lttb {
+
+    private Lttb() {
+    }
+
+    /**
+     * @param x         ascending x values
+     * @param y         y values, same length as {@code x}
+     * @param threshold the number of points to keep, at least 3
+     * @return the ascending indices of the points to keep; all of them if there are no more
+     *         than {@code threshold}
+     */
+    static int[] select(double[] x, double[] y, int threshold) {
+        int n = x.length;
+        if (threshold >= n) {
+            int[] all = new int[n];
+            for (int i = 0; i < n; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+        if (threshold < 3) {
+            throw new IllegalArgumentException("threshold must be at least 3");
+        }
+
+        int[] kept = new int[threshold];
+        int k = 0;
+        kept[k++] = 0;
+        double bucketSize = (double) (n - 2) / (threshold - 2);
+        int previous = 0;
+
+        for (int b = 0; b < threshold - 2; b++) {
+            int start = (int) (b * bucketSize) + 1;
+            int end = (int) ((b + 1) * bucketSize) + 1;
+
+            // Average of the next bucket (or the last point, for the final bucket)
+            int nextStart = end;
+            int nextEnd = Math.min((int) ((b + 2) * bucketSize) + 1, n);
+            double avgX = 0;
+            double avgY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                avgX += x[i];
+                avgY += y[i];
+            }
+            int nextCount = nextEnd - nextStart;
+            avgX /= nextCount;
+            avgY /= nextCount;
+
+            double maxArea = -1;
+            int chosen = start;
+            for (int i = start; i < end; i++) {
+                // Twice the triangle area; the factor doesn't change which is largest
+                double area = Math.abs((x[previous] - avgX) * (y[i] - y[previous])
+                        - (x[previous] - x[i]) * (avgY - y[previous]));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = i;
+                }
+            }
+            kept[k++] = chosen;
+            previous = chosen;
+        }
+        kept[k] = n - 1;
+        return kept;
+    }
+}
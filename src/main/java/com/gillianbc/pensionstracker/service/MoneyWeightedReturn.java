@@ -0,0 +1,242 @@
+package com.gillianbc.pensionstracker.service;
+
+import com.gillianbc.pensionstracker.model.TransactionType;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Money-weighted annual return (XIRR) of a pot between two snapshots.
+ * <p>
+ * The opening balance counts as paid in on the first snapshot date, each external flow
+ * (see {@link TransactionType#isExternalFlow()}) as paid in or taken out on its own date, and
+ * the current balance as taken out on the last snapshot date. The XIRR is the annual rate r at
+ * which those flows net to zero: {@code sum(flow_i * (1 + r)^(-days_i / 365)) = 0}.
+ * <p>
+ * Flows on the same day are merged and held in primitive arrays, and the solver allocates
+ * nothing per iteration.
+ */
+public final class MoneyWeightedReturn {
+
+    private static final double MIN_RATE = -0.99;
+    private static final double MAX_RATE = 1_000;
+    // well below the 0.01% the result is rounded to
+    private static final double TOLERANCE = 1e-9;
+    private static final int NEWTON_ITERATIONS = 20;
+    private static final int MAX_ITERATIONS = 100;
+
+    private final long fromDay;
+    private final long toDay;
+    private final double current;
+    private double[] amounts;
+    private long[] days;
+    private int size;
+    private long lastDay = Long.MIN_VALUE;
+
+    /**
+     * @param expectedFlows a sizing hint for the flow arrays
+     */
+    public MoneyWeightedReturn(LocalDate from, double opening, LocalDate to, double current, int expectedFlows) {
+        this.fromDay = from.toEpochDay();
+        this.toDay = to.toEpochDay();
+        this.current = current;
+        this.amounts = new double[Math.max(expectedFlows, 0) + 2];
+        this.days = new long[amounts.length];
+        append(fromDay, -opening);
+    }
+
+    /**
+     * Adds a transaction if it is an external flow. Anything on or before the opening snapshot,
+     * or after the closing one, is already reflected in those balances and is ignored.
+     */
+    public void addTransaction(LocalDate date, TransactionType type, double amount) {
+        if (type.isExternalFlow()) {
+            addFlow(date, amount);
+        }
+    }
+
+    /**
+     * Adds money paid into the pot (positive) or taken out of it (negative) on the given date.
+     */
+    public void addFlow(LocalDate date, double amount) {
+        long day = date.toEpochDay();
+        if (day > fromDay && day <= toDay) {
+            append(day, -amount);
+        }
+    }
+
+    /**
+     * Solves for the flows added so far plus the closing balance. The flows themselves are left
+     * as they are, so calling this again gives the same answer.
+     *
+     * @return the XIRR as an annual percentage to 2 decimal places, or null if the period is
+     *         empty or no rate between -99% and 100000% balances the flows
+     */
+    public Double annualPercent() {
+        if (toDay <= fromDay) {
+            return null;
+        }
+        double guess = modifiedDietzAnnualRate();
+        // The closing balance goes on a copy, merged into a flow on the closing day if there is one
+        double[] flowAmounts = Arrays.copyOf(amounts, size + 1);
+        long[] flowDays = Arrays.copyOf(days, size + 1);
+        int n = size;
+        if (lastDay == toDay) {
+            flowAmounts[n - 1] += current;
+        } else {
+            flowAmounts[n] = current;
+            flowDays[n] = toDay - fromDay;
+            n++;
+        }
+        double rate = solve(flowAmounts, flowDays, n, guess);
+        if (Double.isNaN(rate)) {
+            return null;
+        }
+        return Math.round(rate * 10_000.0) / 100.0;
+    }
+
+    private void append(long day, double amount) {
+        if (day == lastDay) {
+            amounts[size - 1] += amount;
+            return;
+        }
+        if (size == amounts.length) {
+            amounts = Arrays.copyOf(amounts, size * 2);
+            days = Arrays.copyOf(days, size * 2);
+        }
+        amounts[size] = amount;
+        days[size] = day - fromDay;
+        size++;
+        lastDay = day;
+    }
+
+    /**
+     * The Modified Dietz return, annualised: a close, closed-form estimate of the XIRR that gives
+     * the solver a starting point only a few Newton steps from the root.
+     */
+    private double modifiedDietzAnnualRate() {
+        double period = toDay - fromDay;
+        double netIn = 0;
+        double weightedIn = 0;
+        for (int i = 0; i < size; i++) {
+            netIn -= amounts[i];
+            weightedIn -= amounts[i] * (period - days[i]) / period;
+        }
+        if (weightedIn <= 0) {
+            return 0.1;
+        }
+        double periodReturn = (current - netIn) / weightedIn;
+        return periodReturn <= -1 ? MIN_RATE : Math.pow(1 + periodReturn, 365.0 / period) - 1;
+    }
+
+    /**
+     * Finds the rate r with {@code sum(amounts[i] * (1 + r)^(-days[i] / 365)) = 0}.
+     * <p>
+     * Plain Newton–Raphson from {@code guess} first, which from the Modified Dietz estimate
+     * usually lands in a handful of steps. If that leaves the valid range or stalls, the root is
+     * bracketed and solved by {@link #solveBracketed}, which can't diverge.
+     *
+     * @return the rate, or NaN if no root is found in [{@value #MIN_RATE}, {@value #MAX_RATE}]
+     */
+    static double solve(double[] amounts, long[] days, int n, double guess) {
+        double[] derivative = new double[1];
+        double rate = guess;
+        for (int iter = 0; iter < NEWTON_ITERATIONS; iter++) {
+            double f = npv(amounts, days, n, rate, derivative);
+            double step = f / derivative[0];
+            double next = rate - step;
+            if (!(next > MIN_RATE && next < MAX_RATE)) {
+                break; // out of range, or NaN from a zero derivative
+            }
+            rate = next;
+            if (Math.abs(step) < TOLERANCE) {
+                return rate;
+            }
+        }
+        return solveBracketed(amounts, days, n, guess, derivative);
+    }
+
+    /**
+     * Newton–Raphson safeguarded by a bracket around the root: whenever a Newton step would
+     * leave the bracket, or is not shrinking the error fast enough, a bisection step is taken
+     * instead. Slower to start than {@link #solve}'s fast path, but it can't diverge or cycle.
+     */
+    private static double solveBracketed(double[] amounts, long[] days, int n, double guess, double[] derivative) {
+        double lo = MIN_RATE;
+        double hi = 1.0;
+        double fLo = npv(amounts, days, n, lo, null);
+        double fHi = npv(amounts, days, n, hi, null);
+        while (fLo * fHi > 0 && hi < MAX_RATE) {
+            hi = Math.min(hi * 2 + 1, MAX_RATE);
+            fHi = npv(amounts, days, n, hi, null);
+        }
+        if (fLo == 0) return lo;
+        if (fHi == 0) return hi;
+        if (!(fLo * fHi < 0)) {
+            return Double.NaN; // no root up to MAX_RATE, or the sums overflowed
+        }
+
+        // Orient the bracket so that npv(neg) < 0 < npv(pos)
+        double neg = fLo < 0 ? lo : hi;
+        double pos = fLo < 0 ? hi : lo;
+        double rate = guess > lo && guess < hi ? guess : 0.5 * (lo + hi);
+        double step = hi - lo;
+        double previousStep = step;
+
+        for (int iter = 0; iter < MAX_ITERATIONS; iter++) {
+            double f = npv(amounts, days, n, rate, derivative);
+            double df = derivative[0];
+            if (f == 0) return rate;
+            if (f < 0) neg = rate; else pos = rate;
+
+            boolean newtonLeavesBracket = ((rate - pos) * df - f) * ((rate - neg) * df - f) > 0;
+            boolean newtonTooSlow = Math.abs(2 * f) > Math.abs(previousStep * df);
+            previousStep = step;
+            if (newtonLeavesBracket || newtonTooSlow) {
+                step = 0.5 * (pos - neg);
+                rate = neg + step;
+            } else {
+                step = f / df;
+                rate -= step;
+            }
+            if (Math.abs(step) < TOLERANCE) {
+                return rate;
+            }
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Net present value of the flows at the given annual rate, plus its derivative with respect to
+     * the rate if {@code derivative} is not null.
+     * <p>
+     * The discount factor for day d is q^d with q = (1 + rate)^(-1/365). Rather than an exp() per
+     * flow, it is carried forward from the previous flow by q^gap, and q^gap is only recomputed
+     * when the gap changes, which for monthly or daily flows is almost never.
+     */
+    private static double npv(double[] amounts, long[] days, int n, double rate, double[] derivative) {
+        double q = Math.exp(-Math.log1p(rate) / 365.0);
+        double discount = 1;
+        double gapFactor = 1;
+        long previousDay = 0;
+        long previousGap = 0;
+        double sum = 0;
+        double weightedSum = 0;
+        for (int i = 0; i < n; i++) {
+            long gap = days[i] - previousDay;
+            if (gap != previousGap) {
+                gapFactor = Math.pow(q, gap);
+                previousGap = gap;
+            }
+            discount *= gapFactor;
+            previousDay = days[i];
+            double pv = amounts[i] * discount;
+            sum += pv;
+            weightedSum += days[i] * pv;
+        }
+        if (derivative != null) {
+            derivative[0] = -weightedSum / (365.0 * (1 + rate));
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,113 @@
+package com.gillianbc.pensionstracker.service;
+
+import com.gillianbc.pensionstracker.model.Snapshot;
+import com.gillianbc.pensionstracker.model.Transaction;
+import com.gillianbc.pensionstracker.model.TransactionType;
+import com.gillianbc.pensionstracker.repo.PotMonthlyRollupRepo;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps {@code pot_monthly_rollup} in step with the snapshot and transaction tables.
+ * <p>
+ * Every write path calls {@link #recordSnapshots} or {@link #recordTransactions} in the same
+ * transaction as its inserts. Rows are aggregated per pot and month first, so a bulk write costs
+ * one upsert per month touched rather than one per row. The upserts add to the existing totals
+ * atomically in the database, so concurrent writers to the same month don't lose updates.
+ * <p>
+ * Nothing runs the migration scripts, so on a database where ddl-auto has just created the table
+ * it starts empty; {@link #backfillIfEmpty} fills it from the raw tables at startup.
+ */
+@Service
+@RequiredArgsConstructor
+public class MonthlyRollupService {
+
+    private final PotMonthlyRollupRepo rollupRepo;
+
+    public void recordSnapshots(List<Snapshot> snapshots) {
+        // The last snapshot of each month wins; on the same date, the later one in the list
+        Map<PotMonth, Snapshot> closing = new HashMap<>();
+        for (Snapshot s : snapshots) {
+            closing.merge(PotMonth.of(s.getPot().getId(), s.getDate()), s,
+                    (current, next) -> next.getDate().isBefore(current.getDate()) ? current : next);
+        }
+        closing.forEach((key, s) ->
+                rollupRepo.recordClosing(key.potId(), key.month(), s.getDate(), s.getBalance()));
+    }
+
+    public void recordTransactions(List<Transaction> transactions) {
+        Map<PotMonth, MonthlyFlows> flows = new HashMap<>();
+        for (Transaction t : transactions) {
+            flows.computeIfAbsent(PotMonth.of(t.getPot().getId(), t.getDate()), k -> new MonthlyFlows())
+                    .add(TransactionType.fromCode(t.getType()), t.getAmount());
+        }
+        flows.forEach((key, f) -> rollupRepo.addFlows(key.potId(), key.month(),
+                f.contributions, f.employerMatch, f.transfersIn, f.rebates,
+                f.transfersOut, f.withdrawals, f.fees, f.otherFlows, f.netFlows));
+    }
+
+    /**
+     * Recomputes every row from the raw tables, for after data was written around the services
+     * or the classification of types changed. Concurrent writes wait until it has finished.
+     */
+    @Transactional
+    public int rebuild() {
+        rollupRepo.lockForRebuild();
+        rollupRepo.deleteAllInBatch();
+        return rollupRepo.rebuildAll();
+    }
+
+    /**
+     * Rebuilds the table at startup if it has no rows at all, which is only the case when it is
+     * new or the database has no snapshots or transactions, so either way the rebuild is right.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillIfEmpty() {
+        rollupRepo.lockForRebuild();
+        if (!rollupRepo.hasRows()) {
+            rollupRepo.rebuildAll();
+        }
+    }
+
+    private record PotMonth(Long potId, LocalDate month) {
+        static PotMonth of(Long potId, LocalDate date) {
+            return new PotMonth(potId, date.withDayOfMonth(1));
+        }
+    }
+
+    // The same categories as the rollup's columns and the rebuild query
+    private static final class MonthlyFlows {
+        double contributions;
+        double employerMatch;
+        double transfersIn;
+        double rebates;
+        double transfersOut;
+        double withdrawals;
+        double fees;
+        double otherFlows;
+        double netFlows;
+
+        void add(TransactionType type, double amount) {
+            switch (type) {
+                case CONTRIBUTION -> contributions += amount;
+                case EMPLOYER_MATCH -> employerMatch += amount;
+                case TRANSFER_IN -> transfersIn += amount;
+                case REBATE -> rebates += amount;
+                case TRANSFER_OUT -> transfersOut += amount;
+                case WITHDRAWAL -> withdrawals += amount;
+                case FEE -> fees += amount;
+                case ADJUSTMENT, OTHER -> otherFlows += amount;
+            }
+            netFlows += amount;
+        }
+    }
+}
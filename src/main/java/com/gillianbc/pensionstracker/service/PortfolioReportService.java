@@ -0,0 +1,89 @@
+package com.gillianbc.pensionstracker.service;
+
+import com.gillianbc.pensionstracker.dto.PortfolioReportDto;
+import com.gillianbc.pensionstracker.dto.PotReportDto;
+import com.gillianbc.pensionstracker.dto.PotReportErrorDto;
+import com.gillianbc.pensionstracker.repo.PotRepo;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+@Service
+public class PortfolioReportService {
+    private final ReportService reportService;
+    private final PotRepo potRepo;
+    private final TaskExecutor reportExecutor;
+
+    public PortfolioReportService(ReportService reportService,
+                                  PotRepo potRepo,
+                                  @Qualifier("reportExecutor") TaskExecutor reportExecutor) {
+        this.reportService = reportService;
+        this.potRepo = potRepo;
+        this.reportExecutor = reportExecutor;
+    }
+
+    /**
+     * Builds the report for each pot in parallel on the report executor and rolls them up.
+     *
+     * A pot whose report throws doesn't fail the rest: it is reported in {@code errors} and
+     * the portfolio is rolled up from the pots that succeeded.
+     *
+     * @param potIds the pots to include, or null/empty for every pot. Ids of pots that
+     *               do not exist are left out of the result.
+     */
+    public PortfolioReportDto buildPortfolio(List<Long> potIds) {
+        List<Long> ids = potIds == null || potIds.isEmpty() ? potRepo.findAllIds() : potIds;
+
+        List<CompletableFuture<PotReportDto>> futures = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            futures.add(CompletableFuture.supplyAsync(() -> reportService.buildReport(id), reportExecutor));
+        }
+
+        List<PotReportDto> reports = new ArrayList<>(futures.size());
+        List<PotReportErrorDto> errors = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                PotReportDto report = futures.get(i).join();
+                if (report != null) {
+                    reports.add(report);
+                }
+            } catch (CompletionException e) {
+                errors.add(failure(ids.get(i), e.getCause() != null ? e.getCause() : e));
+            }
+        }
+        return rollUp(reports, errors);
+    }
+
+    static PotReportErrorDto failure(Long potId, Throwable e) {
+        return new PotReportErrorDto(potId, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+    }
+
+    static PortfolioReportDto rollUp(List<PotReportDto> reports, List<PotReportErrorDto> errors) {
+        LocalDate from = null;
+        LocalDate to = null;
+        double opening = 0, current = 0, contribExclRebates = 0, contribInclRebates = 0, growth = 0;
+        for (PotReportDto r : reports) {
+            if (r.fromDate() != null && (from == null || r.fromDate().isBefore(from))) {
+                from = r.fromDate();
+            }
+            if (r.toDate() != null && (to == null || r.toDate().isAfter(to))) {
+                to = r.toDate();
+            }
+            opening += r.openingBalance();
+            current += r.currentBalance();
+            contribExclRebates += r.contributionsExclRebates();
+            contribInclRebates += r.contributionsInclRebates();
+            growth += r.growth();
+        }
+        return new PortfolioReportDto(from, to, round(opening), round(current),
+                round(contribExclRebates), round(contribInclRebates), round(growth), reports, errors);
+    }
+
+    private static double round(double v) { return Math.round(v * 100.0) / 100.0; }
+}
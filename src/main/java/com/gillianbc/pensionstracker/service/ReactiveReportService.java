@@ -0,0 +1,83 @@
+package com.gillianbc.pensionstracker.service;
+
+import com.gillianbc.pensionstracker.dto.PortfolioReportDto;
+import com.gillianbc.pensionstracker.dto.PotReportDto;
+import com.gillianbc.pensionstracker.dto.PotReportErrorDto;
+import com.gillianbc.pensionstracker.repo.reactive.ReactivePotRepo;
+import com.gillianbc.pensionstracker.repo.reactive.ReactiveSnapshotRepo;
+import com.gillianbc.pensionstracker.repo.reactive.ReactiveTransactionRepo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Non-blocking versions of the pot and portfolio reports, read over R2DBC.
+ * <p>
+ * A pot's transactions are streamed through {@link ReportService.Accumulator} as they arrive
+ * rather than collected into a list, so a report holds only its running totals and the external
+ * flows for the money-weighted return, however long the pot's history. Nothing waits on a
+ * thread while the queries run.
+ * <p>
+ * These reports are not cached: {@link ReportCache} builds on the caller's thread, which is the
+ * blocking model this service exists to avoid. The results are the same as
+ * {@link ReportService#buildReport}'s.
+ */
+@Service
+public class ReactiveReportService {
+    private final ReactivePotRepo potRepo;
+    private final ReactiveSnapshotRepo snapshotRepo;
+    private final ReactiveTransactionRepo txRepo;
+    private final int parallelism;
+
+    public ReactiveReportService(ReactivePotRepo potRepo,
+                                 ReactiveSnapshotRepo snapshotRepo,
+                                 ReactiveTransactionRepo txRepo,
+                                 @Value("${pensions.report.parallelism:8}") int parallelism) {
+        this.potRepo = potRepo;
+        this.snapshotRepo = snapshotRepo;
+        this.txRepo = txRepo;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @return the pot's report, or empty if the pot does not exist
+     */
+    public Mono<PotReportDto> buildReport(Long potId) {
+        return potRepo.existsById(potId)
+                .flatMap(exists -> exists ? buildExistingReport(potId) : Mono.empty());
+    }
+
+    private Mono<PotReportDto> buildExistingReport(Long potId) {
+        return Mono.zip(snapshotRepo.findFirstByPotIdOrderByDateAsc(potId),
+                        snapshotRepo.findFirstByPotIdOrderByDateDesc(potId))
+                .flatMap(ends -> txRepo.findByPotIdOrderByDate(potId)
+                        .reduceWith(() -> new ReportService.Accumulator(potId,
+                                        ends.getT1().date(), ends.getT1().balance(),
+                                        ends.getT2().date(), ends.getT2().balance(), 0),
+                                (report, t) -> report.add(t.date(), t.type(), t.amount()))
+                        .map(ReportService.Accumulator::toReport))
+                .defaultIfEmpty(new PotReportDto(potId, null, null, 0, 0, 0,  0, 0));
+    }
+
+    /**
+     * Reports for the given pots, or every pot, built {@code pensions.report.parallelism} at a
+     * time and rolled up as {@link PortfolioReportService} does. Pots that do not exist are left
+     * out, and pots whose report fails are listed in {@code errors}.
+     */
+    public Mono<PortfolioReportDto> buildPortfolio(List<Long> potIds) {
+        Flux<Long> ids = potIds == null || potIds.isEmpty() ? potRepo.findAllIds() : Flux.fromIterable(potIds);
+        return Mono.defer(() -> {
+            List<PotReportErrorDto> errors = new CopyOnWriteArrayList<>();
+            return ids.flatMapSequential(id -> buildReport(id).onErrorResume(e -> {
+                        errors.add(PortfolioReportService.failure(id, e));
+                        return Mono.empty();
+                    }), parallelism)
+                    .collectList()
+                    .map(reports -> PortfolioReportService.rollUp(reports, List.copyOf(errors)));
+        });
+    }
+}
@@ -0,0 +1,216 @@
+package com.gillianbc.pensionstracker.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import com.gillianbc.pensionstracker.dto.CacheStatsDto;
+import com.gillianbc.pensionstracker.dto.PotReportDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Bounded caches of pot reports and time-weighted return series, keyed by pot id.
+ * <p>
+ * A report only changes when a snapshot or transaction is written for its pot, so every write
+ * path calls {@link #evict(Long, LocalDate)} and the admin clears call {@link #evictAll()}.
+ * Entries also expire after {@code pensions.report.cache.ttl} as a safety net.
+ * <p>
+ * A {@link TimeWeightedReturn} series only depends on rows up to its last snapshot, so a write
+ * dated after that is an append: the series is kept and extended on the next read instead of
+ * being rebuilt. Backdated writes drop it.
+ * <p>
+ * Entries are futures, and a build runs on the caller's thread after its future is in the map,
+ * not inside a map compute: that would hold a {@code ConcurrentHashMap} bin lock, and so pin a
+ * virtual thread to its carrier, for as long as the queries take. Callers wanting a pot that is
+ * already being built wait for that build instead of starting their own.
+ * <p>
+ * Both caches' hit, miss and eviction counts are published as {@code cache.*} meters, tagged
+ * {@code cache=reports} and {@code cache=twr-series}. The TWR series is read and written through
+ * the cache's map, which Caffeine doesn't count, so {@link #getTwr} records its own hits and
+ * misses: a series served or extended from the cache is a hit, a full build a miss.
+ */
+@Component
+public class ReportCache implements MeterBinder {
+
+    private final AsyncCache<Long, PotReportDto> reports;
+    private final AsyncCache<Long, TimeWeightedReturn> twrSeries;
+    private final ConcurrentStatsCounter twrStats = new ConcurrentStatsCounter();
+
+    public ReportCache(@Value("${pensions.report.cache.max-size:1000}") long maxSize,
+                       @Value("${pensions.report.cache.ttl:10m}") Duration ttl) {
+        this.reports = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        this.twrSeries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats(() -> twrStats)
+                .buildAsync();
+    }
+
+    /**
+     * Returns the cached report, building it on a miss. Null reports (unknown pots) are not cached.
+     */
+    public PotReportDto get(Long potId, Function<Long, PotReportDto> builder) {
+        CompletableFuture<PotReportDto> promise = new CompletableFuture<>();
+        CompletableFuture<PotReportDto> report = reports.get(potId, (id, executor) -> promise);
+        if (report == promise) {
+            return complete(promise, () -> builder.apply(potId));
+        }
+        return join(report);
+    }
+
+    /**
+     * Returns the pot's TWR series: built on a miss, extended if snapshots have been appended
+     * since it was cached, otherwise as cached. Null series (unknown pots) are not cached.
+     */
+    public TimeWeightedReturn getTwr(Long potId,
+                                     Function<Long, TimeWeightedReturn> builder,
+                                     BiFunction<Long, TimeWeightedReturn, TimeWeightedReturn> extender) {
+        ConcurrentMap<Long, CompletableFuture<TimeWeightedReturn>> map = twrSeries.asMap();
+        while (true) {
+            CompletableFuture<TimeWeightedReturn> cached = map.get(potId);
+            CompletableFuture<TimeWeightedReturn> promise = new CompletableFuture<>();
+            if (cached == null) {
+                if (map.putIfAbsent(potId, promise) == null) {
+                    twrStats.recordMisses(1);
+                    return complete(promise, () -> builder.apply(potId));
+                }
+                continue;
+            }
+            TimeWeightedReturn series = join(cached);
+            if (series == null || !series.appendPending()) {
+                twrStats.recordHits(1);
+                return series;
+            }
+            // only the caller that swaps in its own future extends; the others wait for it
+            if (map.replace(potId, cached, promise)) {
+                twrStats.recordHits(1);
+                return complete(promise, () -> extender.apply(potId, series));
+            }
+        }
+    }
+
+    /**
+     * Runs {@code build} on this thread and hands its result, or failure, to anyone waiting on
+     * {@code promise}. A null result or a failure takes the entry out of the cache.
+     */
+    private static <T> T complete(CompletableFuture<T> promise, Supplier<T> build) {
+        T value;
+        try {
+            value = build.get();
+        } catch (RuntimeException | Error e) {
+            promise.completeExceptionally(e);
+            throw e;
+        }
+        promise.complete(value);
+        return value;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Drops everything cached for the pot.
+     */
+    public void evict(Long potId) {
+        evict(potId, null);
+    }
+
+    /**
+     * Drops the pot's report after a write dated {@code earliestDate}, the earliest date written.
+     * The TWR series is kept for extension if the write comes after its last snapshot, and dropped
+     * otherwise or if the date is null. Inside a transaction this is repeated after commit, so
+     * anything rebuilt from uncommitted-away data cannot linger.
+     */
+    public void evict(Long potId, LocalDate earliestDate) {
+        if (potId == null) {
+            return;
+        }
+        invalidate(potId, earliestDate);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(potId, earliestDate);
+                }
+            });
+        }
+    }
+
+    public void evictAll() {
+        reports.synchronous().invalidateAll();
+        twrSeries.synchronous().invalidateAll();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reports.synchronous().invalidateAll();
+                    twrSeries.synchronous().invalidateAll();
+                }
+            });
+        }
+    }
+
+    /**
+     * A build still in flight is dropped rather than waited for, and so is never cached: it may
+     * have read the rows as they were before this write.
+     */
+    private void invalidate(Long potId, LocalDate earliestDate) {
+        reports.synchronous().invalidate(potId);
+        twrSeries.asMap().computeIfPresent(potId, (id, future) -> {
+            TimeWeightedReturn series = future.isDone() && !future.isCompletedExceptionally()
+                    ? future.getNow(null)
+                    : null;
+            return series != null && earliestDate != null && series.lastDate() != null
+                    && earliestDate.isAfter(series.lastDate())
+                    ? CompletableFuture.completedFuture(series.withAppendPending())
+                    : null;
+        });
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, reports, "reports");
+        CaffeineCacheMetrics.monitor(registry, twrSeries, "twr-series");
+    }
+
+    public CacheStatsDto stats() {
+        return stats(reports);
+    }
+
+    public CacheStatsDto twrStats() {
+        return stats(twrSeries);
+    }
+
+    private static CacheStatsDto stats(AsyncCache<Long, ?> cache) {
+        CacheStats stats = cache.synchronous().stats();
+        return new CacheStatsDto(cache.synchronous().estimatedSize(), stats.hitCount(), stats.missCount(),
+                stats.hitRate(), stats.evictionCount());
+    }
+}
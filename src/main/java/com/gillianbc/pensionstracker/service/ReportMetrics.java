@@ -0,0 +1,63 @@
+package com.gillianbc.pensionstracker.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of report builds, split into the time spent querying the database and the time spent
+ * computing on what came back, so a slow p99 can be pinned on one or the other.
+ * <p>
+ * Both are {@code pensions.report.build} timers with a {@code phase} tag of {@code query} or
+ * {@code compute}, and a {@code kind} tag for the build path. They publish histogram buckets, so
+ * percentiles can be aggregated across instances. Cache hits build nothing and aren't recorded
+ * here; see the {@code cache.*} meters for those.
+ */
+@Component
+public class ReportMetrics {
+
+    public enum Kind {
+        AGGREGATE("aggregate"),
+        IN_MEMORY("in-memory"),
+        TWR_BUILD("twr-build"),
+        TWR_EXTEND("twr-extend");
+
+        private final String tag;
+
+        Kind(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final Map<Kind, Timer> queryTimers = new EnumMap<>(Kind.class);
+    private final Map<Kind, Timer> computeTimers = new EnumMap<>(Kind.class);
+
+    public ReportMetrics(MeterRegistry registry) {
+        for (Kind kind : Kind.values()) {
+            queryTimers.put(kind, timer(registry, kind, "query"));
+            computeTimers.put(kind, timer(registry, kind, "compute"));
+        }
+    }
+
+    private static Timer timer(MeterRegistry registry, Kind kind, String phase) {
+        return Timer.builder("pensions.report.build")
+                .description("Time to build a pot report, by phase")
+                .tag("kind", kind.tag)
+                .tag("phase", phase)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * @param queryNanos   time from the start of the build until the last query returned
+     * @param computeNanos time from then until the result was ready
+     */
+    public void record(Kind kind, long queryNanos, long computeNanos) {
+        queryTimers.get(kind).record(queryNanos, TimeUnit.NANOSECONDS);
+        computeTimers.get(kind).record(computeNanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -1,24 +1,47 @@
 package com.gillianbc.pensionstracker.service;
 
 import com.gillianbc.pensionstracker.dto.PotReportDto;
+import com.gillianbc.pensionstracker.dto.TwrReportDto;
 import com.gillianbc.pensionstracker.model.Snapshot;
 import com.gillianbc.pensionstracker.model.Transaction;
+import com.gillianbc.pensionstracker.model.TransactionType;
+import com.gillianbc.pensionstracker.repo.PotMonthlyRollupRepo;
 import com.gillianbc.pensionstracker.repo.PotRepo;
 import com.gillianbc.pensionstracker.repo.SnapshotRepo;
 import com.gillianbc.pensionstracker.repo.TransactionRepo;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 
 @Service
-@RequiredArgsConstructor
 public class ReportService {
     private final SnapshotRepo snapshotRepo;
     private final TransactionRepo txRepo;
     private final PotRepo potRepo;
+    private final PotMonthlyRollupRepo rollupRepo;
+    private final ReportCache reportCache;
+    private final ReportMetrics metrics;
+    private final boolean aggregateInDatabase;
+
+    public ReportService(SnapshotRepo snapshotRepo,
+                         TransactionRepo txRepo,
+                         PotRepo potRepo,
+                         PotMonthlyRollupRepo rollupRepo,
+                         ReportCache reportCache,
+                         ReportMetrics metrics,
+                         @Value("${pensions.report.aggregate-in-database:true}") boolean aggregateInDatabase) {
+        this.snapshotRepo = snapshotRepo;
+        this.txRepo = txRepo;
+        this.potRepo = potRepo;
+        this.rollupRepo = rollupRepo;
+        this.reportCache = reportCache;
+        this.metrics = metrics;
+        this.aggregateInDatabase = aggregateInDatabase;
+    }
 
     /**
      * <pre>Builds a detailed report for the specified pot identified by its ID.
@@ -39,43 +62,192 @@ public class ReportService {
      * - growth: The monetary growth of the pot since the `from` date, calculated as `current - opening - netFlows`.
      * - cagr: The compound annual growth rate (CAGR) as a percentage, representing the annualized rate of return on investments in the pot, inclusive of all cash flows and the terminal balance.
      * - growthPercent: The percentage growth of the pot since the `from` date, calculated as `(current - opening) / opening less any contributions`.
+     * - xirrAnnualPercent: The money-weighted annual return (XIRR) as a percentage, which, unlike cagr, allows for when money was paid in or taken out. See {@link MoneyWeightedReturn}.
      *
      *
      *
      * </pre>
      *
+     * Reports are served from {@link ReportCache} until a write for the pot evicts them.
+     *
      * @param potId the ID of the pot for which the report is being generated.
      * @return a {@link PotReportDto} containing the financial details of the
      *         pot, or null if the specified pot does not exist.
      */
     public PotReportDto buildReport(Long potId) {
+        return reportCache.get(potId, this::buildUncachedReport);
+    }
+
+    /**
+     * Builds the time-weighted return series for the pot, one period per pair of consecutive
+     * snapshots. See {@link TimeWeightedReturn}.
+     * <p>
+     * The series is cached. When later snapshots are appended, only the rows after the last
+     * cached snapshot are read and the series is extended rather than recomputed.
+     *
+     * @return the series, or null if the pot does not exist
+     */
+    public TwrReportDto buildTimeWeightedReturn(Long potId) {
+        TimeWeightedReturn series = reportCache.getTwr(potId, this::buildTwrSeries, this::extendTwrSeries);
+        return series == null ? null : series.toDto();
+    }
+
+    private TimeWeightedReturn buildTwrSeries(Long potId) {
+        long start = System.nanoTime();
+        if (!potExists(potId)) {
+            return null;
+        }
+        List<Snapshot> snaps = snapshotRepo.findByPotIdOrderByDate(potId);
+        List<Transaction> txs = txRepo.findByPotIdOrderByDate(potId);
+        long queried = System.nanoTime();
+        TimeWeightedReturn series = TimeWeightedReturn.of(potId, snaps, txs);
+        metrics.record(ReportMetrics.Kind.TWR_BUILD, queried - start, System.nanoTime() - queried);
+        return series;
+    }
+
+    private TimeWeightedReturn extendTwrSeries(Long potId, TimeWeightedReturn series) {
+        long start = System.nanoTime();
+        LocalDate after = series.lastDate();
+        List<Snapshot> snaps = snapshotRepo.findByPotIdAndDateAfterOrderByDate(potId, after);
+        List<Transaction> txs = txRepo.findByPotIdAndDateAfterOrderByDate(potId, after);
+        long queried = System.nanoTime();
+        TimeWeightedReturn extended = series.extend(snaps, txs);
+        metrics.record(ReportMetrics.Kind.TWR_EXTEND, queried - start, System.nanoTime() - queried);
+        return extended;
+    }
+
+    private PotReportDto buildUncachedReport(Long potId) {
         // Check if the pot exists; if not, return null (for 404 handling)
         if (!potExists(potId)) {
             return null;
         }
+        return aggregateInDatabase ? buildReportFromAggregates(potId) : buildReportInMemory(potId);
+    }
+
+    /**
+     * Lets the database do the work: the first and last snapshots are selected as projections
+     * and the transaction totals are summed from the pot's monthly rollups, so only a handful of
+     * rows come back and no entities are loaded however long the pot's history is.
+     */
+    PotReportDto buildReportFromAggregates(Long potId) {
+        long start = System.nanoTime();
+        // 1) Get data
+        Optional<SnapshotRepo.BalancePoint> first = snapshotRepo.findFirstByPotIdOrderByDateAsc(potId);
+        if (first.isEmpty()) {
+            metrics.record(ReportMetrics.Kind.AGGREGATE, System.nanoTime() - start, 0);
+            return new PotReportDto(potId, null, null, 0, 0, 0,  0, 0);
+        }
+        SnapshotRepo.BalancePoint last = snapshotRepo.findFirstByPotIdOrderByDateDesc(potId).orElseThrow();
+
+        // 2) Totals, folded from the monthly rollups' per-category sums
+        PotMonthlyRollupRepo.RollupTotals sums = rollupRepo.sumByPotId(potId);
+        ReportTotals totals = new ReportTotals();
+        totals.add(TransactionType.CONTRIBUTION, orZero(sums.getContributions()));
+        totals.add(TransactionType.EMPLOYER_MATCH, orZero(sums.getEmployerMatch()));
+        totals.add(TransactionType.TRANSFER_IN, orZero(sums.getTransfersIn()));
+        totals.add(TransactionType.REBATE, orZero(sums.getRebates()));
+        totals.add(TransactionType.TRANSFER_OUT, orZero(sums.getTransfersOut()));
+        totals.add(TransactionType.WITHDRAWAL, orZero(sums.getWithdrawals()));
+        totals.add(TransactionType.FEE, orZero(sums.getFees()));
+        totals.add(TransactionType.OTHER, orZero(sums.getOtherFlows()));
+
+        // 3) External flows, one summed row per day, for the money-weighted return
+        LocalDate from = first.get().getDate();
+        List<TransactionRepo.DatedTotal> flows = txRepo.sumAmountsByDate(
+                potId, TransactionType.externalFlowCodes(), from, last.getDate());
+        long queried = System.nanoTime();
+        MoneyWeightedReturn mwr = new MoneyWeightedReturn(
+                from, first.get().getBalance(), last.getDate(), last.getBalance(), flows.size());
+        for (int i = 0, n = flows.size(); i < n; i++) {
+            TransactionRepo.DatedTotal flow = flows.get(i);
+            mwr.addFlow(flow.getDate(), flow.getTotal());
+        }
+
+        PotReportDto report = toReport(potId, from, last.getDate(),
+                first.get().getBalance(), last.getBalance(), totals, mwr);
+        metrics.record(ReportMetrics.Kind.AGGREGATE, queried - start, System.nanoTime() - queried);
+        return report;
+    }
+
+    /**
+     * Fallback that loads every snapshot and transaction for the pot and totals them in memory.
+     * Enabled by setting {@code pensions.report.aggregate-in-database} to false.
+     */
+    PotReportDto buildReportInMemory(Long potId) {
+        long start = System.nanoTime();
         // 1) Get data
         List<Snapshot> snaps = snapshotRepo.findByPotIdOrderByDate(potId);
+        List<Transaction> txs = txRepo.findByPotIdOrderByDate(potId);
+        long queried = System.nanoTime();
+        PotReportDto report = reportFrom(potId, snaps, txs);
+        metrics.record(ReportMetrics.Kind.IN_MEMORY, queried - start, System.nanoTime() - queried);
+        return report;
+    }
+
+    /**
+     * Computes a report from date-ordered snapshots and transactions already in memory.
+     */
+    static PotReportDto reportFrom(Long potId, List<Snapshot> snaps, List<Transaction> txs) {
         if (snaps.isEmpty()) {
             return new PotReportDto(potId, null, null, 0, 0, 0,  0, 0);
         }
-        LocalDate from = snaps.get(0).getDate();
-        LocalDate to   = snaps.get(snaps.size()-1).getDate();
-        double opening = snaps.get(0).getBalance();
-        double current = snaps.get(snaps.size()-1).getBalance();
+        Snapshot first = snaps.get(0);
+        Snapshot last = snaps.get(snaps.size()-1);
 
-        List<Transaction> txs = txRepo.findByPotIdOrderByDate(potId);
+        // 2) Totals and external flows, in one pass over the transactions
+        Accumulator report = new Accumulator(potId, first.getDate(), first.getBalance(),
+                last.getDate(), last.getBalance(), txs.size());
+        for (int i = 0, n = txs.size(); i < n; i++) {
+            Transaction t = txs.get(i);
+            report.add(t.getDate(), t.getType(), t.getAmount());
+        }
+        return report.toReport();
+    }
 
-        // 2) Totals
-        double contribExclRebates = txs.stream()
-                .filter(t -> isInflow(t) && !isRebate(t))
-                .mapToDouble(Transaction::getAmount).sum();
+    /**
+     * Builds a report from the first and last snapshots and the pot's transactions, fed one at a
+     * time, so that a caller streaming rows off the database never needs to hold them all.
+     */
+    static final class Accumulator {
+        private final Long potId;
+        private final LocalDate from;
+        private final LocalDate to;
+        private final double opening;
+        private final double current;
+        private final ReportTotals totals = new ReportTotals();
+        private final MoneyWeightedReturn mwr;
 
-        double contribInclRebates = txs.stream()
-                .filter(this::isInflowOrRebate)
-                .mapToDouble(Transaction::getAmount).sum();
+        /**
+         * @param expectedTransactions a sizing hint, as for {@link MoneyWeightedReturn}
+         */
+        Accumulator(Long potId, LocalDate from, double opening, LocalDate to, double current,
+                    int expectedTransactions) {
+            this.potId = potId;
+            this.from = from;
+            this.to = to;
+            this.opening = opening;
+            this.current = current;
+            this.mwr = new MoneyWeightedReturn(from, opening, to, current, expectedTransactions);
+        }
 
-        double netFlows = txs.stream()
-                .mapToDouble(Transaction::getAmount).sum();
+        Accumulator add(LocalDate date, String typeCode, double amount) {
+            TransactionType type = TransactionType.fromCode(typeCode);
+            totals.add(type, amount);
+            mwr.addTransaction(date, type, amount);
+            return this;
+        }
+
+        PotReportDto toReport() {
+            return ReportService.toReport(potId, from, to, opening, current, totals, mwr);
+        }
+    }
+
+    private static PotReportDto toReport(Long potId, LocalDate from, LocalDate to,
+                                  double opening, double current, ReportTotals totals,
+                                  MoneyWeightedReturn mwr) {
+        double contribExclRebates = totals.contribExclRebates();
+        double contribInclRebates = totals.contribInclRebates();
+        double netFlows = totals.netFlows();
 
         // 3) Growth since first snapshot
         // balance_now = opening + netFlows + growth  => growth = balance_now - opening - netFlows
@@ -92,7 +264,8 @@ public class ReportService {
 
         return new PotReportDto(
                 potId, from, to, opening, current,
-                round(contribExclRebates), round(contribInclRebates), round(growth)
+                round(contribExclRebates), round(contribInclRebates), round(growth),
+                mwr.annualPercent()
         );
     }
 
@@ -106,19 +279,9 @@ public class ReportService {
         return potRepo.existsById(potId);
     }
 
-    private boolean isRebate(Transaction t) {
-        return "rebate".equalsIgnoreCase(t.getType());
-    }
-    private boolean isInflow(Transaction t) {
-        return switch (t.getType().toLowerCase()) {
-            case "contribution", "employer_match", "transfer_in" -> true;
-            default -> false;
-        };
-    }
-    private boolean isInflowOrRebate(Transaction t) {
-        return isInflow(t) || isRebate(t);
-    }
-    private double round(double v) { return Math.round(v * 100.0) / 100.0; }
+    private static double round(double v) { return Math.round(v * 100.0) / 100.0; }
+
+    private static double orZero(Double v) { return v == null ? 0 : v; }
 
 }
 
@@ -0,0 +1,63 @@
+package com.gillianbc.pensionstracker.service;
+
+import com.gillianbc.pensionstracker.model.Transaction;
+import com.gillianbc.pensionstracker.model.TransactionType;
+
+import java.util.List;
+
+/**
+ * Accumulates the transaction totals behind a pot report in a single pass.
+ * <p>
+ * Each transaction's type is resolved to a {@link TransactionType} once and added to every
+ * total it contributes to, so no per-transaction objects are created.
+ */
+public final class ReportTotals {
+
+    private double contribExclRebates;
+    private double contribInclRebates;
+    private double netFlows;
+
+    public static ReportTotals of(List<Transaction> txs) {
+        ReportTotals totals = new ReportTotals();
+        for (int i = 0, n = txs.size(); i < n; i++) {
+            Transaction t = txs.get(i);
+            totals.add(t.getType(), t.getAmount());
+        }
+        return totals;
+    }
+
+    public void add(String type, double amount) {
+        add(TransactionType.fromCode(type), amount);
+    }
+
+    public void add(TransactionType type, double amount) {
+        if (type.isInflow()) {
+            contribExclRebates += amount;
+            contribInclRebates += amount;
+        } else if (type == TransactionType.REBATE) {
+            contribInclRebates += amount;
+        }
+        netFlows += amount;
+    }
+
+    /**
+     * Inflows (contributions, employer matches, transfers in), excluding rebates.
+     */
+    public double contribExclRebates() {
+        return contribExclRebates;
+    }
+
+    /**
+     * Inflows plus rebates.
+     */
+    public double contribInclRebates() {
+        return contribInclRebates;
+    }
+
+    /**
+     * Sum of every transaction amount, whatever its type.
+     */
+    public double netFlows() {
+        return netFlows;
+    }
+}
@@ -0,0 +1,213 @@
+package com.gillianbc.pensionstracker.service;
+
+import com.gillianbc.pensionstracker.dto.SheetImportDto;
+import com.gillianbc.pensionstracker.repo.PotRepo;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Imports date/balance rows from a spreadsheet or CSV file into a pot.
+ * <p>
+ * Rows are streamed off the sheet and written in batches of {@code pensions.import.batch-size},
+ * one transaction per batch, so an N-row import costs N / batch-size transactions rather than N.
+ */
+@Service
+public class SnapshotImportService {
+
+    // Enough to see what went wrong without a bad file filling the heap with messages
+    static final int MAX_ERRORS_KEPT = 100;
+
+    private final PotRepo potRepo;
+    private final SnapshotService snapshotService;
+    private final ImportMetrics metrics;
+    private final int batchSize;
+
+    public SnapshotImportService(PotRepo potRepo,
+                                 SnapshotService snapshotService,
+                                 ImportMetrics metrics,
+                                 @Value("${pensions.import.batch-size:500}") int batchSize) {
+        this.potRepo = potRepo;
+        this.snapshotService = snapshotService;
+        this.metrics = metrics;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Imports the first sheet of an .xlsx file.
+     *
+     * @throws EntityNotFoundException if the pot does not exist
+     * @throws Exception                if the file cannot be opened or parsed
+     */
+    public Result importExcel(Long potId, File file) throws Exception {
+        return importFile(potId, file, Format.XLSX, Progress.NONE);
+    }
+
+    /**
+     * Imports an .xlsx file (first sheet) or a CSV file, in the same two-column layout, reporting
+     * each written batch and each error to {@code progress} as the import goes.
+     *
+     * @throws EntityNotFoundException if the pot does not exist
+     * @throws Exception                if the file cannot be opened or parsed
+     */
+    public Result importFile(Long potId, File file, Format format, Progress progress) throws Exception {
+        if (!potRepo.existsById(potId)) {
+            throw new EntityNotFoundException("Pot not found: " + potId);
+        }
+        long start = System.nanoTime();
+        BatchWriter writer = new BatchWriter(potId, metrics.counting(ImportMetrics.Kind.FILE, progress));
+        switch (format) {
+            case XLSX -> XlsxSheetReader.readFirstSheet(file, writer::row);
+            case CSV -> CsvReader.read(file, writer::row);
+        }
+        writer.flush();
+        long elapsed = System.nanoTime() - start;
+        metrics.finished(ImportMetrics.Kind.FILE, writer.imported + writer.rejected, elapsed);
+        return new Result(writer.imported, writer.errors, writer.errorCount, elapsed);
+    }
+
+    public enum Format {
+        XLSX, CSV;
+
+        /**
+         * CSV for a {@code text/csv} content type or a {@code .csv} file name, otherwise XLSX.
+         */
+        public static Format of(String contentType, String fileName) {
+            boolean csv = (contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith("text/csv"))
+                    || (fileName != null && fileName.toLowerCase(Locale.ROOT).endsWith(".csv"));
+            return csv ? CSV : XLSX;
+        }
+    }
+
+    // The header row, if present, is the first row read with "date", "balance", on whatever
+    // line it is: blank lines before it are skipped
+    static boolean isHeader(boolean firstRow, String dateStr, String balanceStr) {
+        return firstRow
+                && "date".equalsIgnoreCase(dateStr)
+                && "balance".equalsIgnoreCase(balanceStr);
+    }
+
+    /**
+     * @throws RuntimeException if the date is not YYYY-MM-DD or the balance is not a number
+     */
+    static SnapshotService.Entry parseRow(String dateStr, String balanceStr) {
+        LocalDate date = LocalDate.parse(dateStr);
+        double balance = Double.parseDouble(balanceStr.replace(",", ""));
+        return new SnapshotService.Entry(date, balance);
+    }
+
+    /**
+     * Told about rows as they are written or rejected. A single-file import calls it on the
+     * importing thread; {@link WorkbookImportService} calls it from its parsers and its writer at
+     * once, so implementations must be thread-safe.
+     */
+    public interface Progress {
+        Progress NONE = new Progress() {
+        };
+
+        default void imported(int rows) {
+        }
+
+        /**
+         * @param rows number of rows the error covers: 1 for a bad row, the batch size for a failed batch
+         */
+        default void failed(int rows, String error) {
+        }
+
+        /**
+         * A workbook import has finished with one sheet.
+         */
+        default void sheet(SheetImportDto report) {
+        }
+    }
+
+    /**
+     * Outcome of an import.
+     *
+     * @param imported     number of snapshots written
+     * @param errors       the first {@value #MAX_ERRORS_KEPT} messages, one per rejected row or failed batch
+     * @param errorCount   number of rejected rows and failed batches
+     * @param elapsedNanos wall-clock time for the whole import
+     */
+    public record Result(int imported, List<String> errors, int errorCount, long elapsedNanos) {
+
+        public long elapsedMillis() {
+            return elapsedNanos / 1_000_000;
+        }
+
+        public double rowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : imported * 1_000_000_000.0 / elapsedNanos;
+        }
+    }
+
+    /**
+     * Parses rows and buffers them until a full batch is ready to write.
+     */
+    private final class BatchWriter {
+        private final Long potId;
+        private final Progress progress;
+        private final List<SnapshotService.Entry> batch = new ArrayList<>(batchSize);
+        private final List<String> errors = new ArrayList<>();
+        private int errorCount;
+        private int imported;
+        private int rejected;
+        private int firstRow;
+        private int lastRow;
+        private boolean seenFirstRow;
+
+        private BatchWriter(Long potId, Progress progress) {
+            this.potId = potId;
+            this.progress = progress;
+        }
+
+        void row(int rowNum, String dateStr, String balanceStr) {
+            boolean first = !seenFirstRow;
+            seenFirstRow = true;
+            if (isHeader(first, dateStr, balanceStr)) {
+                return;
+            }
+            try {
+                SnapshotService.Entry entry = parseRow(dateStr, balanceStr);
+                if (batch.isEmpty()) {
+                    firstRow = rowNum;
+                }
+                lastRow = rowNum;
+                batch.add(entry);
+            } catch (Exception e) {
+                error(1, "Row " + (rowNum + 1) + " error: " + e.getMessage());
+            }
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                snapshotService.saveSnapshots(potId, batch);
+                imported += batch.size();
+                progress.imported(batch.size());
+            } catch (Exception e) {
+                error(batch.size(), "Rows " + (firstRow + 1) + "-" + (lastRow + 1) + " error: " + e.getMessage());
+            }
+            batch.clear();
+        }
+
+        private void error(int rows, String message) {
+            if (errors.size() < MAX_ERRORS_KEPT) {
+                errors.add(message);
+            }
+            errorCount++;
+            rejected += rows;
+            progress.failed(rows, message);
+        }
+    }
+}
@@ -8,16 +8,23 @@ import jakarta.transaction.Transactional;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 
 @Service
 public class SnapshotService {
 
     private final PotRepo potRepository;
     private final SnapshotRepo snapshotRepository;
+    private final MonthlyRollupService rollups;
+    private final ReportCache reportCache;
 
-    public SnapshotService(PotRepo potRepository, SnapshotRepo snapshotRepository) {
+    public SnapshotService(PotRepo potRepository, SnapshotRepo snapshotRepository,
+                           MonthlyRollupService rollups, ReportCache reportCache) {
         this.potRepository = potRepository;
         this.snapshotRepository = snapshotRepository;
+        this.rollups = rollups;
+        this.reportCache = reportCache;
     }
 
     @Transactional
@@ -28,6 +35,36 @@ public class SnapshotService {
         snapshot.setPot(pot);
         snapshot.setDate(date);
         snapshot.setBalance(balance);
-        snapshotRepository.save(snapshot);
+        rollups.recordSnapshots(List.of(snapshotRepository.save(snapshot)));
+        reportCache.evict(potId, date);
+    }
+
+    /**
+     * Saves a batch of snapshots for one pot in a single transaction.
+     * <p>
+     * The pot is referenced by id rather than loaded, so callers must check it exists first.
+     * With {@code hibernate.jdbc.batch_size} set, the inserts go out as JDBC batches
+     * rather than one statement per row.
+     */
+    @Transactional
+    public void saveSnapshots(Long potId, List<Entry> entries) {
+        Pot pot = potRepository.getReferenceById(potId);
+        List<Snapshot> snapshots = new ArrayList<>(entries.size());
+        LocalDate earliest = null;
+        for (Entry entry : entries) {
+            if (earliest == null || entry.date().isBefore(earliest)) {
+                earliest = entry.date();
+            }
+            Snapshot snapshot = new Snapshot();
+            snapshot.setPot(pot);
+            snapshot.setDate(entry.date());
+            snapshot.setBalance(entry.balance());
+            snapshots.add(snapshot);
+        }
+        rollups.recordSnapshots(snapshotRepository.saveAll(snapshots));
+        reportCache.evict(potId, earliest);
+    }
+
+    public record Entry(LocalDate date, double balance) {
     }
 }
@@ -0,0 +1,197 @@
+package com.gillianbc.pensionstracker.service;
+
+import com.gillianbc.pensionstracker.dto.TimeSeriesDto;
+import com.gillianbc.pensionstracker.dto.TimeSeriesPointDto;
+import com.gillianbc.pensionstracker.model.PotMonthlyRollup;
+import com.gillianbc.pensionstracker.repo.PotMonthlyRollupRepo;
+import com.gillianbc.pensionstracker.repo.PotRepo;
+import com.gillianbc.pensionstracker.repo.SnapshotRepo;
+import com.gillianbc.pensionstracker.repo.TransactionRepo;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A pot's balance history for charting.
+ * <p>
+ * Month, quarter and year buckets over whole months are read from the pot's monthly rollups, one
+ * row per month. Otherwise the database does the bucketing over the raw tables: it returns only
+ * the last snapshot in each bucket and one summed row of transactions per bucket. Either way,
+ * balances and flows pair up the same way. If that is still more than {@code maxPoints}, the points
+ * are thinned with {@link Lttb}, and the flows of dropped points are carried into the next kept
+ * point so no money goes missing from the series.
+ */
+@Service
+@RequiredArgsConstructor
+public class TimeSeriesService {
+
+    private final PotRepo potRepo;
+    private final SnapshotRepo snapshotRepo;
+    private final TransactionRepo transactionRepo;
+    private final PotMonthlyRollupRepo rollupRepo;
+
+    public enum Bucket {
+        DAY, WEEK, MONTH, QUARTER, YEAR;
+
+        /**
+         * The first day of the bucket holding {@code date}, as PostgreSQL's date_trunc() has it.
+         */
+        public LocalDate start(LocalDate date) {
+            return switch (this) {
+                case DAY -> date;
+                case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MONTH -> date.withDayOfMonth(1);
+                case QUARTER -> date.withDayOfMonth(1).withMonth((date.getMonthValue() - 1) / 3 * 3 + 1);
+                case YEAR -> date.withDayOfYear(1);
+            };
+        }
+
+        /**
+         * Whether buckets are made of whole calendar months, so can be built from monthly rollups.
+         */
+        public boolean isWholeMonths() {
+            return this == MONTH || this == QUARTER || this == YEAR;
+        }
+
+        /**
+         * The date_trunc() field name.
+         */
+        public String sqlName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * @param from      first date to include, or null to start at the pot's first snapshot or
+     *                  transaction
+     * @param to        last date to include, or null to end at the pot's last snapshot or
+     *                  transaction
+     * @param maxPoints the most points to return, at least 3
+     * @return the series, or null if the pot does not exist
+     */
+    public TimeSeriesDto buildTimeSeries(Long potId, LocalDate from, LocalDate to, Bucket bucket, int maxPoints) {
+        if (!potRepo.existsById(potId)) {
+            return null;
+        }
+        LocalDate start = from;
+        LocalDate end = to;
+        if (from == null || to == null) {
+            PotRepo.DateRange range = potRepo.findDateRange(potId);
+            from = from == null ? range.getFirstDate() : from;
+            to = to == null ? range.getLastDate() : to;
+            if (from == null || to == null) {
+                return new TimeSeriesDto(potId, bucket.sqlName(), from, to, maxPoints, List.of(), 0);
+            }
+            // The pot has no rows outside its own dates, so a defaulted end can be widened to a
+            // whole month for free, letting month, quarter and year buckets use the rollups
+            start = start == null ? from.withDayOfMonth(1) : start;
+            end = end == null ? to.with(TemporalAdjusters.lastDayOfMonth()) : end;
+        }
+        Series series;
+        boolean wholeMonths = start.getDayOfMonth() == 1 && end.equals(end.with(TemporalAdjusters.lastDayOfMonth()));
+        if (bucket.isWholeMonths() && wholeMonths) {
+            series = fromRollups(rollupRepo.findByIdPotIdAndIdStartOfMonthBetweenOrderByIdStartOfMonth(
+                    potId, start.withDayOfMonth(1), end.withDayOfMonth(1)), bucket);
+        } else {
+            series = merge(snapshotRepo.findLastInEachBucket(potId, bucket.sqlName(), start, end),
+                    transactionRepo.sumAmountsByBucket(potId, bucket.sqlName(), start, end), bucket);
+        }
+        return new TimeSeriesDto(potId, bucket.sqlName(), from, to, maxPoints,
+                downsample(series.points(), maxPoints), round(series.pendingFlows()));
+    }
+
+    /**
+     * Points in date order, and the flows after the last of them.
+     */
+    record Series(List<TimeSeriesPointDto> points, double pendingFlows) {
+    }
+
+    /**
+     * Pairs each bucket's balance with the flows since the previous balance. Flows in buckets
+     * with no snapshot roll forward to the next bucket that has one; flows after the last
+     * snapshot's bucket have no balance to show them against, and are returned as pending.
+     */
+    static Series merge(List<SnapshotRepo.BalancePoint> balances,
+                        List<TransactionRepo.DatedTotal> flows,
+                        Bucket bucket) {
+        List<TimeSeriesPointDto> points = new ArrayList<>(balances.size());
+        int f = 0;
+        for (SnapshotRepo.BalancePoint balance : balances) {
+            LocalDate bucketStart = bucket.start(balance.getDate());
+            double netFlows = 0;
+            for (; f < flows.size() && !flows.get(f).getDate().isAfter(bucketStart); f++) {
+                netFlows += flows.get(f).getTotal();
+            }
+            points.add(new TimeSeriesPointDto(balance.getDate(), balance.getBalance(), round(netFlows)));
+        }
+        double pending = 0;
+        for (; f < flows.size(); f++) {
+            pending += flows.get(f).getTotal();
+        }
+        return new Series(points, pending);
+    }
+
+    /**
+     * Folds ascending monthly rollups into buckets: each bucket's balance is its last month's
+     * closing balance, with the same roll-forward of flows as {@link #merge}.
+     */
+    static Series fromRollups(List<PotMonthlyRollup> months, Bucket bucket) {
+        List<TimeSeriesPointDto> points = new ArrayList<>();
+        double pendingFlows = 0;
+        LocalDate closingDate = null;
+        Double closingBalance = null;
+        for (int i = 0, n = months.size(); i < n; i++) {
+            PotMonthlyRollup month = months.get(i);
+            pendingFlows += month.getNetFlows();
+            if (month.getClosingDate() != null) {
+                closingDate = month.getClosingDate();
+                closingBalance = month.getClosingBalance();
+            }
+            boolean lastOfBucket = i == n - 1
+                    || !bucket.start(months.get(i + 1).getId().getStartOfMonth()).equals(bucket.start(month.getId().getStartOfMonth()));
+            if (lastOfBucket && closingDate != null) {
+                points.add(new TimeSeriesPointDto(closingDate, closingBalance, round(pendingFlows)));
+                pendingFlows = 0;
+                closingDate = null;
+                closingBalance = null;
+            }
+        }
+        return new Series(points, pendingFlows);
+    }
+
+    static List<TimeSeriesPointDto> downsample(List<TimeSeriesPointDto> points, int maxPoints) {
+        int n = points.size();
+        if (n <= maxPoints) {
+            return points;
+        }
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = points.get(i).date().toEpochDay();
+            y[i] = points.get(i).balance();
+        }
+
+        int[] kept = Lttb.select(x, y, maxPoints);
+        List<TimeSeriesPointDto> sampled = new ArrayList<>(kept.length);
+        int next = 0;
+        for (int index : kept) {
+            double netFlows = 0;
+            for (; next <= index; next++) {
+                netFlows += points.get(next).netFlows();
+            }
+            TimeSeriesPointDto point = points.get(index);
+            sampled.add(new TimeSeriesPointDto(point.date(), point.balance(), round(netFlows)));
+        }
+        return sampled;
+    }
+
+    private static double round(double v) {
+        return Math.round(v * 100.0) / 100.0;
+    }
+}
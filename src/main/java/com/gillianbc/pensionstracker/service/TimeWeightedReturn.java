@@ -0,0 +1,151 @@
+package com.gillianbc.pensionstracker.service;
+
+import com.gillianbc.pensionstracker.dto.TwrPeriodDto;
+import com.gillianbc.pensionstracker.dto.TwrReportDto;
+import com.gillianbc.pensionstracker.model.Snapshot;
+import com.gillianbc.pensionstracker.model.Transaction;
+import com.gillianbc.pensionstracker.model.TransactionType;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Time-weighted return (TWR) series for one pot.
+ * <p>
+ * Each pair of consecutive snapshots is a sub-period. Its return is the Modified Dietz return,
+ * {@code (closing - opening - flows) / (opening + time-weighted flows)}, using the external flows
+ * (see {@link TransactionType#isExternalFlow()}) dated after the opening snapshot and up to and
+ * including the closing one. Sub-period returns are chained, so the result is not skewed by when
+ * or how much money was paid in.
+ * <p>
+ * Instances are immutable. {@link #extend} adds periods for snapshots after the last one without
+ * touching the earlier periods, which is what lets {@link ReportCache} keep a series and only
+ * extend it when later snapshots are appended.
+ */
+public final class TimeWeightedReturn {
+
+    private final Long potId;
+    private final LocalDate fromDate;
+    private final LocalDate lastDate;
+    private final double lastBalance;
+    private final double growthFactor;
+    private final List<TwrPeriodDto> periods;
+    private final boolean appendPending;
+
+    private TimeWeightedReturn(Long potId, LocalDate fromDate, LocalDate lastDate, double lastBalance,
+                               double growthFactor, List<TwrPeriodDto> periods, boolean appendPending) {
+        this.potId = potId;
+        this.fromDate = fromDate;
+        this.lastDate = lastDate;
+        this.lastBalance = lastBalance;
+        this.growthFactor = growthFactor;
+        this.periods = periods;
+        this.appendPending = appendPending;
+    }
+
+    /**
+     * Computes the whole series from the pot's date-ordered snapshots and transactions.
+     */
+    public static TimeWeightedReturn of(Long potId, List<Snapshot> snaps, List<Transaction> txs) {
+        if (snaps.isEmpty()) {
+            return new TimeWeightedReturn(potId, null, null, 0, 1, List.of(), false);
+        }
+        Snapshot first = snaps.get(0);
+        TimeWeightedReturn start = new TimeWeightedReturn(
+                potId, first.getDate(), first.getDate(), first.getBalance(), 1, List.of(), false);
+        return start.extend(snaps.subList(1, snaps.size()), txs);
+    }
+
+    /**
+     * Adds a period for each snapshot dated after the last one, in a single merge pass over the
+     * two date-ordered lists. Rows on or before the last snapshot are skipped, and transactions
+     * after the new last snapshot are left for a later extension.
+     */
+    public TimeWeightedReturn extend(List<Snapshot> snaps, List<Transaction> txs) {
+        if (lastDate == null) {
+            return of(potId, snaps, txs);
+        }
+        List<TwrPeriodDto> extended = new ArrayList<>(periods.size() + snaps.size());
+        extended.addAll(periods);
+        LocalDate prevDate = lastDate;
+        double prevBalance = lastBalance;
+        double factor = growthFactor;
+
+        int t = 0;
+        int txCount = txs.size();
+        while (t < txCount && !txs.get(t).getDate().isAfter(prevDate)) {
+            t++;
+        }
+        for (int i = 0, n = snaps.size(); i < n; i++) {
+            Snapshot s = snaps.get(i);
+            LocalDate date = s.getDate();
+            if (!date.isAfter(prevDate)) {
+                continue;
+            }
+            double days = ChronoUnit.DAYS.between(prevDate, date);
+            double flows = 0;
+            double weightedFlows = 0;
+            for (; t < txCount && !txs.get(t).getDate().isAfter(date); t++) {
+                Transaction tx = txs.get(t);
+                if (TransactionType.fromCode(tx.getType()).isExternalFlow()) {
+                    double amount = tx.getAmount();
+                    flows += amount;
+                    weightedFlows += amount * ChronoUnit.DAYS.between(tx.getDate(), date) / days;
+                }
+            }
+
+            double capital = prevBalance + weightedFlows;
+            Double returnPercent = null;
+            if (capital > 0) {
+                double periodReturn = (s.getBalance() - prevBalance - flows) / capital;
+                factor *= 1 + periodReturn;
+                returnPercent = percent(periodReturn);
+            }
+            extended.add(new TwrPeriodDto(prevDate, date, prevBalance, s.getBalance(),
+                    round(flows), returnPercent, percent(factor - 1)));
+            prevDate = date;
+            prevBalance = s.getBalance();
+        }
+        return new TimeWeightedReturn(potId, fromDate, prevDate, prevBalance, factor,
+                Collections.unmodifiableList(extended), false);
+    }
+
+    /**
+     * The same series, flagged so the next read checks for appended snapshots.
+     */
+    TimeWeightedReturn withAppendPending() {
+        return appendPending ? this : new TimeWeightedReturn(
+                potId, fromDate, lastDate, lastBalance, growthFactor, periods, true);
+    }
+
+    boolean appendPending() {
+        return appendPending;
+    }
+
+    /**
+     * The date of the last snapshot in the series, or null if the pot has none.
+     */
+    public LocalDate lastDate() {
+        return lastDate;
+    }
+
+    public TwrReportDto toDto() {
+        Double annualised = null;
+        if (fromDate != null && lastDate.isAfter(fromDate) && growthFactor > 0) {
+            double years = ChronoUnit.DAYS.between(fromDate, lastDate) / 365.0;
+            annualised = percent(Math.pow(growthFactor, 1 / years) - 1);
+        }
+        return new TwrReportDto(potId, fromDate, lastDate, percent(growthFactor - 1), annualised, periods);
+    }
+
+    private static double percent(double fraction) {
+        return Math.round(fraction * 10_000.0) / 100.0;
+    }
+
+    private static double round(double v) {
+        return Math.round(v * 100.0) / 100.0;
+    }
+}
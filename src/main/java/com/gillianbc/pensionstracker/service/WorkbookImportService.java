@@ -0,0 +1,418 @@
+package com.gillianbc.pensionstracker.service;
+
+import com.gillianbc.pensionstracker.dto.SheetImportDto;
+import com.gillianbc.pensionstracker.repo.PotRepo;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Imports many sheets in one go. Each sheet of each workbook, and each CSV file, goes into the
+ * pot whose plan number is the sheet name. If no pot has that plan number, the pot with that name
+ * is used. A CSV file's "sheet name" is its file name without the extension.
+ * <p>
+ * Files are opened and sheets parsed in parallel on the {@code importParseExecutor} pool, and
+ * the parsers never touch the database. They hand parsed rows over a bounded queue, a batch of
+ * {@code pensions.import.batch-size} rows at a time, to a single writer on the calling thread.
+ * The writer saves each batch in one transaction. However many sheets are parsed at once, the
+ * import uses one connection, and a slow database makes the parsers wait rather than filling the
+ * heap.
+ */
+@Service
+public class WorkbookImportService {
+
+    // Per sheet; the job's error list and count cover the whole import
+    static final int MAX_SHEET_ERRORS = 20;
+
+    public enum SheetStatus { IMPORTED, UNMATCHED, AMBIGUOUS, FAILED }
+
+    private final PotRepo potRepo;
+    private final SnapshotService snapshotService;
+    private final ImportMetrics metrics;
+    private final TaskExecutor parseExecutor;
+    private final int queueCapacity;
+    private final int batchSize;
+
+    public WorkbookImportService(PotRepo potRepo,
+                                 SnapshotService snapshotService,
+                                 ImportMetrics metrics,
+                                 @Qualifier("importParseExecutor") TaskExecutor parseExecutor,
+                                 @Value("${pensions.import.parse-threads:4}") int parseThreads,
+                                 @Value("${pensions.import.batch-size:500}") int batchSize) {
+        this.potRepo = potRepo;
+        this.snapshotService = snapshotService;
+        this.metrics = metrics;
+        this.parseExecutor = parseExecutor;
+        // Room for every parser to be blocked on one batch, and as many again ready to write
+        this.queueCapacity = 2 * parseThreads;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * A file to import.
+     *
+     * @param name the name to report it under, e.g. the uploaded file name
+     */
+    public record Source(File file, String name, SnapshotImportService.Format format) {
+    }
+
+    /**
+     * Imports every sheet of every file, reporting progress and each finished sheet to
+     * {@code progress} as it goes.
+     *
+     * @return one report per sheet, in file and sheet order; a file that could not be opened
+     *         has a single FAILED report with no sheet name
+     */
+    public List<SheetImportDto> importFiles(List<Source> sources, SnapshotImportService.Progress jobProgress)
+            throws InterruptedException {
+        long start = System.nanoTime();
+        SnapshotImportService.Progress progress = metrics.counting(ImportMetrics.Kind.WORKBOOKS, jobProgress);
+        List<OpenFile> files = openAll(sources);
+        try {
+            List<Sheet> sheets = new ArrayList<>();
+            for (OpenFile file : files) {
+                if (file.failure != null) {
+                    Sheet failed = new Sheet(file, -1, null);
+                    failed.fail(file.failure);
+                    sheets.add(failed);
+                    continue;
+                }
+                for (int i = 0; i < file.sheetNames.size(); i++) {
+                    sheets.add(new Sheet(file, i, file.sheetNames.get(i)));
+                }
+            }
+            List<Sheet> matched = match(sheets);
+            for (Sheet sheet : sheets) {
+                if (sheet.potId == null) {
+                    progress.failed(0, sheet.describe(sheet.failure));
+                    progress.sheet(sheet.toReport());
+                }
+            }
+            write(matched, progress);
+            List<SheetImportDto> reports = sheets.stream().map(Sheet::toReport).toList();
+            int rows = reports.stream().mapToInt(r -> r.rowsImported() + r.rowsRejected()).sum();
+            metrics.finished(ImportMetrics.Kind.WORKBOOKS, rows, System.nanoTime() - start);
+            return reports;
+        } finally {
+            files.forEach(OpenFile::close);
+        }
+    }
+
+    /**
+     * Opens every file on the parser pool. If that goes wrong part way, say the pool rejects a
+     * file, the files already submitted are closed as soon as they have opened.
+     */
+    private List<OpenFile> openAll(List<Source> sources) {
+        List<CompletableFuture<OpenFile>> opening = new ArrayList<>(sources.size());
+        boolean opened = false;
+        try {
+            for (Source source : sources) {
+                opening.add(CompletableFuture.supplyAsync(() -> open(source), parseExecutor));
+            }
+            List<OpenFile> files = opening.stream().map(CompletableFuture::join).toList();
+            opened = true;
+            return files;
+        } finally {
+            if (!opened) {
+                for (CompletableFuture<OpenFile> file : opening) {
+                    file.thenAccept(OpenFile::close);
+                }
+            }
+        }
+    }
+
+    private static OpenFile open(Source source) {
+        OpenFile file = new OpenFile(source);
+        try {
+            if (source.format() == SnapshotImportService.Format.CSV) {
+                String name = source.name();
+                int dot = name.lastIndexOf('.');
+                file.sheetNames = List.of(dot > 0 ? name.substring(0, dot) : name);
+            } else {
+                file.workbook = XlsxSheetReader.open(source.file());
+                file.sheetNames = file.workbook.sheetNames();
+            }
+        } catch (Exception e) {
+            file.failure = "Failed to read file: " + e.getMessage();
+        }
+        return file;
+    }
+
+    /**
+     * Sets each sheet's pot, or marks it UNMATCHED or AMBIGUOUS, with one query for all of them.
+     *
+     * @return the sheets that matched exactly one pot
+     */
+    private List<Sheet> match(List<Sheet> sheets) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (Sheet sheet : sheets) {
+            if (sheet.failure == null) {
+                keys.add(sheet.key());
+            }
+        }
+        Map<String, List<Long>> byPlanNumber = new HashMap<>();
+        Map<String, List<Long>> byName = new HashMap<>();
+        if (!keys.isEmpty()) {
+            for (PotRepo.ImportTarget pot : potRepo.findImportTargets(keys)) {
+                byPlanNumber.computeIfAbsent(pot.getPlanNumber(), k -> new ArrayList<>()).add(pot.getId());
+                byName.computeIfAbsent(pot.getName(), k -> new ArrayList<>()).add(pot.getId());
+            }
+        }
+
+        List<Sheet> matched = new ArrayList<>();
+        for (Sheet sheet : sheets) {
+            if (sheet.failure != null) {
+                continue;
+            }
+            List<Long> pots = byPlanNumber.getOrDefault(sheet.key(), List.of());
+            if (pots.isEmpty()) {
+                pots = byName.getOrDefault(sheet.key(), List.of());
+            }
+            if (pots.size() == 1) {
+                sheet.potId = pots.get(0);
+                matched.add(sheet);
+            } else if (pots.isEmpty()) {
+                sheet.status = SheetStatus.UNMATCHED;
+                sheet.failure = "No pot has plan number or name '" + sheet.key() + "'";
+            } else {
+                sheet.status = SheetStatus.AMBIGUOUS;
+                sheet.failure = pots.size() + " pots have plan number or name '" + sheet.key() + "'";
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * Starts a parser per sheet and writes their batches as they arrive, until every parser has
+     * finished.
+     */
+    private void write(List<Sheet> sheets, SnapshotImportService.Progress progress) throws InterruptedException {
+        BlockingQueue<Chunk> queue = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        int parsing = 0;
+        for (Sheet sheet : sheets) {
+            try {
+                parseExecutor.execute(() -> parse(sheet, queue, cancelled, progress));
+                parsing++;
+            } catch (TaskRejectedException e) {
+                String error = "Failed to read sheet: the parser pool is full or shutting down";
+                sheet.fail(error);
+                progress.failed(0, sheet.describe(error));
+                progress.sheet(sheet.toReport());
+            }
+        }
+
+        boolean finished = false;
+        try {
+            while (parsing > 0) {
+                Chunk chunk = queue.take();
+                Sheet sheet = chunk.sheet();
+                if (chunk.entries() == null) {
+                    parsing--;
+                    progress.sheet(sheet.toReport());
+                    continue;
+                }
+                int rows = chunk.entries().size();
+                try {
+                    snapshotService.saveSnapshots(sheet.potId, chunk.entries());
+                    sheet.imported += rows;
+                    progress.imported(rows);
+                } catch (Exception e) {
+                    String error = "Rows " + (chunk.firstRow() + 1) + "-" + (chunk.lastRow() + 1)
+                            + " error: " + e.getMessage();
+                    sheet.reject(rows, error);
+                    progress.failed(rows, sheet.describe(error));
+                }
+            }
+            finished = true;
+        } finally {
+            if (!finished) {
+                // Interrupted, or something else escaped: unblock any parser waiting to put;
+                // each then sees the flag and stops
+                cancelled.set(true);
+                queue.clear();
+            }
+        }
+    }
+
+    private void parse(Sheet sheet, BlockingQueue<Chunk> queue, AtomicBoolean cancelled,
+                       SnapshotImportService.Progress progress) {
+        SheetParser parser = new SheetParser(sheet, queue, cancelled, progress);
+        try {
+            if (sheet.file.workbook != null) {
+                sheet.file.workbook.readSheet(sheet.index, parser::row);
+            } else {
+                CsvReader.read(sheet.file.source.file(), parser::row);
+            }
+            parser.flush();
+        } catch (CancellationException e) {
+            return;
+        } catch (Exception e) {
+            String error = "Failed to read sheet: " + e.getMessage();
+            sheet.fail(error);
+            progress.failed(0, sheet.describe(error));
+        }
+        try {
+            put(queue, new Chunk(sheet, null, 0, 0), cancelled);
+        } catch (CancellationException ignored) {
+            // the writer has gone
+        }
+    }
+
+    private static void put(BlockingQueue<Chunk> queue, Chunk chunk, AtomicBoolean cancelled) {
+        if (cancelled.get()) {
+            throw new CancellationException();
+        }
+        try {
+            queue.put(chunk);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException();
+        }
+    }
+
+    /**
+     * A batch of parsed rows for the writer, or with null entries, the end of a sheet.
+     */
+    private record Chunk(Sheet sheet, List<SnapshotService.Entry> entries, int firstRow, int lastRow) {
+    }
+
+    /**
+     * Parses one sheet's rows into batches for the writer.
+     */
+    private final class SheetParser {
+        private final Sheet sheet;
+        private final BlockingQueue<Chunk> queue;
+        private final AtomicBoolean cancelled;
+        private final SnapshotImportService.Progress progress;
+        private List<SnapshotService.Entry> batch = new ArrayList<>(batchSize);
+        private int firstRow;
+        private int lastRow;
+        private boolean seenFirstRow;
+
+        private SheetParser(Sheet sheet, BlockingQueue<Chunk> queue, AtomicBoolean cancelled,
+                            SnapshotImportService.Progress progress) {
+            this.sheet = sheet;
+            this.queue = queue;
+            this.cancelled = cancelled;
+            this.progress = progress;
+        }
+
+        void row(int rowNum, String dateStr, String balanceStr) {
+            boolean first = !seenFirstRow;
+            seenFirstRow = true;
+            if (SnapshotImportService.isHeader(first, dateStr, balanceStr)) {
+                return;
+            }
+            try {
+                SnapshotService.Entry entry = SnapshotImportService.parseRow(dateStr, balanceStr);
+                if (batch.isEmpty()) {
+                    firstRow = rowNum;
+                }
+                lastRow = rowNum;
+                batch.add(entry);
+            } catch (Exception e) {
+                String error = "Row " + (rowNum + 1) + " error: " + e.getMessage();
+                sheet.reject(1, error);
+                progress.failed(1, sheet.describe(error));
+            }
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            // The writer owns the list from here on, so start a new one
+            put(queue, new Chunk(sheet, batch, firstRow, lastRow), cancelled);
+            batch = new ArrayList<>(batchSize);
+        }
+    }
+
+    private static final class OpenFile {
+        private final Source source;
+        private XlsxSheetReader.Workbook workbook;
+        private List<String> sheetNames;
+        private String failure;
+
+        private OpenFile(Source source) {
+            this.source = source;
+        }
+
+        void close() {
+            if (workbook != null) {
+                workbook.close();
+            }
+        }
+    }
+
+    /**
+     * One sheet's progress. Rows are rejected by both its parser and the writer, so that is
+     * synchronized; everything else is written by one thread and read by the writer after the
+     * sheet's end-of-sheet chunk, which the queue orders after those writes.
+     */
+    private static final class Sheet {
+        private final OpenFile file;
+        private final int index;
+        private final String name;
+        private final List<String> errors = new ArrayList<>();
+        private SheetStatus status = SheetStatus.IMPORTED;
+        private String failure;
+        private Long potId;
+        private int imported;
+        private int rejected;
+
+        private Sheet(OpenFile file, int index, String name) {
+            this.file = file;
+            this.index = index;
+            this.name = name;
+        }
+
+        String key() {
+            return name.trim();
+        }
+
+        synchronized void reject(int rows, String error) {
+            rejected += rows;
+            if (errors.size() < MAX_SHEET_ERRORS) {
+                errors.add(error);
+            }
+        }
+
+        synchronized void fail(String error) {
+            status = SheetStatus.FAILED;
+            failure = error;
+            if (errors.size() < MAX_SHEET_ERRORS) {
+                errors.add(error);
+            }
+        }
+
+        String describe(String message) {
+            return name == null
+                    ? file.source.name() + ": " + message
+                    : file.source.name() + " [" + name + "]: " + message;
+        }
+
+        synchronized SheetImportDto toReport() {
+            List<String> reported = errors.isEmpty() && failure != null ? List.of(failure) : List.copyOf(errors);
+            return new SheetImportDto(file.source.name(), name, potId, status.name(), imported, rejected, reported);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.gillianbc.pensionstracker.service;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams the rows of an .xlsx workbook using POI's event (SAX) model.
+ * <p>
+ * Unlike {@code new XSSFWorkbook(...)}, nothing but the current row is held in memory,
+ * so heap use stays flat however many rows the sheet has. Only the first two columns
+ * are reported, formatted the same way {@link DataFormatter#formatCellValue} would.
+ */
+public final class XlsxSheetReader {
+
+    @FunctionalInterface
+    public interface RowHandler {
+        /**
+         * @param rowNum     zero-based row index, as {@code Row.getRowNum()} would report it
+         * @param firstCell  formatted value of column A, or "" if the cell is empty
+         * @param secondCell formatted value of column B, or "" if the cell is empty
+         */
+        void row(int rowNum, String firstCell, String secondCell);
+    }
+
+    private XlsxSheetReader() {
+    }
+
+    /**
+     * Reads the first sheet of the workbook, calling the handler once per row in sheet order.
+     */
+    public static void readFirstSheet(File file, RowHandler handler)
+            throws IOException, OpenXML4JException, SAXException, ParserConfigurationException {
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                return;
+            }
+            try (InputStream sheet = sheets.next()) {
+                parseSheet(sheet, styles, strings, handler);
+            }
+        }
+    }
+
+    /**
+     * Opens a workbook so that its sheets can be read one by one or concurrently.
+     * <p>
+     * The package, shared strings and styles are loaded once, here, on the calling thread; after
+     * that they are only read. {@link Workbook#readSheet} then just opens the sheet's own zip entry
+     * and parses it, so different sheets of the same workbook can be read on different threads.
+     * The caller must close the workbook once every sheet has been read.
+     */
+    public static Workbook open(File file)
+            throws IOException, OpenXML4JException, SAXException {
+        OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ);
+        try {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+            List<String> names = new ArrayList<>();
+            List<PackagePart> parts = new ArrayList<>();
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext()) {
+                sheets.next().close();
+                names.add(sheets.getSheetName());
+                parts.add(sheets.getSheetPart());
+            }
+            return new Workbook(pkg, strings, styles, List.copyOf(names), List.copyOf(parts));
+        } catch (IOException | OpenXML4JException | SAXException | RuntimeException e) {
+            pkg.revert();
+            throw e;
+        }
+    }
+
+    public static final class Workbook implements Closeable {
+        private final OPCPackage pkg;
+        private final ReadOnlySharedStringsTable strings;
+        private final StylesTable styles;
+        private final List<String> sheetNames;
+        private final List<PackagePart> sheetParts;
+
+        private Workbook(OPCPackage pkg, ReadOnlySharedStringsTable strings, StylesTable styles,
+                         List<String> sheetNames, List<PackagePart> sheetParts) {
+            this.pkg = pkg;
+            this.strings = strings;
+            this.styles = styles;
+            this.sheetNames = sheetNames;
+            this.sheetParts = sheetParts;
+        }
+
+        /**
+         * The sheet names, in workbook order.
+         */
+        public List<String> sheetNames() {
+            return sheetNames;
+        }
+
+        /**
+         * Reads one sheet, calling the handler once per row in sheet order. Safe to call for
+         * different sheets from different threads at once.
+         */
+        public void readSheet(int index, RowHandler handler)
+                throws IOException, SAXException, ParserConfigurationException {
+            try (InputStream sheet = sheetParts.get(index).getInputStream()) {
+                parseSheet(sheet, styles, strings, handler);
+            }
+        }
+
+        @Override
+        public void close() {
+            // Opened read-only, so there is nothing to save
+            pkg.revert();
+        }
+    }
+
+    private static void parseSheet(InputStream sheet, StylesTable styles, ReadOnlySharedStringsTable strings,
+                                   RowHandler handler)
+            throws IOException, SAXException, ParserConfigurationException {
+        XMLReader parser = XMLHelper.newXMLReader();
+        parser.setContentHandler(new XSSFSheetXMLHandler(
+                styles, null, strings, new TwoColumnHandler(handler), new DataFormatter(), false));
+        parser.parse(new InputSource(sheet));
+    }
+
+    /**
+     * Collects the first two cells of each row and hands them on when the row ends.
+     */
+    private static final class TwoColumnHandler implements SheetContentsHandler {
+        private final RowHandler handler;
+        private String first;
+        private String second;
+
+        private TwoColumnHandler(RowHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            first = "";
+            second = "";
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            handler.row(rowNum, first, second);
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            if (cellReference == null || formattedValue == null) {
+                return;
+            }
+            int col = columnIndex(cellReference);
+            if (col == 0) {
+                first = formattedValue;
+            } else if (col == 1) {
+                second = formattedValue;
+            }
+        }
+
+        // "B12" -> 1, without allocating a CellReference per cell
+        private static int columnIndex(String cellReference) {
+            int col = 0;
+            for (int i = 0; i < cellReference.length(); i++) {
+                char c = cellReference.charAt(i);
+                if (c < 'A' || c > 'Z') {
+                    break;
+                }
+                col = col * 26 + (c - 'A' + 1);
+            }
+            return col - 1;
+        }
+    }
+}
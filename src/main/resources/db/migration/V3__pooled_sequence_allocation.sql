@@ -0,0 +1,20 @@
+-- Ids come from Hibernate's pooled optimizer (PooledSequenceGenerator), which reserves a block of
+-- pensions.id.allocation-size ids per nextval. Each sequence must increment by that same amount.
+ALTER SEQUENCE IF EXISTS provider_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS pot_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS snapshot_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS transaction_seq INCREMENT BY 50;
+
+-- The pooled optimizer hands out (value - 49 .. value), so never let a sequence sit below an existing id.
+-- Like the ALTERs above, this skips any sequence (or table) that doesn't exist yet.
+DO $$
+DECLARE
+    tbl text;
+BEGIN
+    FOREACH tbl IN ARRAY ARRAY['provider', 'pot', 'snapshot', 'transaction'] LOOP
+        IF to_regclass(tbl || '_seq') IS NOT NULL AND to_regclass(quote_ident(tbl)) IS NOT NULL THEN
+            EXECUTE format('SELECT setval(%L, GREATEST((SELECT COALESCE(MAX(id), 1) FROM %I), (SELECT last_value FROM %I)))',
+                    tbl || '_seq', tbl, tbl || '_seq');
+        END IF;
+    END LOOP;
+END $$;
@@ -0,0 +1,19 @@
+-- Every report reads a pot's rows in date order (findByPotIdOrderByDate), or the first/last
+-- snapshot and per-type transaction totals for one pot. These indexes serve those straight
+-- from the index; the INCLUDE columns let the report projections be answered index-only.
+-- The names match the @Index declarations on Snapshot and Transaction, so ddl-auto will not
+-- add a second, narrower copy.
+--
+-- The indexes are dropped and built CONCURRENTLY, so writes to snapshot and transaction carry on
+-- while a large table is indexed. CONCURRENTLY cannot run inside a transaction block: run this
+-- script with autocommit on, one statement at a time (psql -f does this by default; with Flyway,
+-- mark the migration non-transactional). If a concurrent build fails it leaves an INVALID index
+-- behind; re-running the script drops and rebuilds it.
+DROP INDEX CONCURRENTLY IF EXISTS snapshot_pot_id_date_idx;
+CREATE INDEX CONCURRENTLY snapshot_pot_id_date_idx ON snapshot (pot_id, date) INCLUDE (balance);
+
+DROP INDEX CONCURRENTLY IF EXISTS transaction_pot_id_date_idx;
+CREATE INDEX CONCURRENTLY transaction_pot_id_date_idx ON transaction (pot_id, date) INCLUDE (type, amount);
+
+ANALYZE snapshot;
+ANALYZE transaction;
@@ -0,0 +1,51 @@
+-- One row per pot and month: the closing balance (the month's last snapshot) and the month's
+-- transaction amounts by category. Kept current by the write paths (MonthlyRollupService) so
+-- reports and charts read O(months) rows instead of O(snapshots + transactions).
+CREATE TABLE IF NOT EXISTS pot_monthly_rollup (
+    pot_id          BIGINT           NOT NULL,
+    month           DATE             NOT NULL,
+    closing_date    DATE,
+    closing_balance DOUBLE PRECISION,
+    contributions   DOUBLE PRECISION NOT NULL,
+    employer_match  DOUBLE PRECISION NOT NULL,
+    transfers_in    DOUBLE PRECISION NOT NULL,
+    rebates         DOUBLE PRECISION NOT NULL,
+    transfers_out   DOUBLE PRECISION NOT NULL,
+    withdrawals     DOUBLE PRECISION NOT NULL,
+    fees            DOUBLE PRECISION NOT NULL,
+    other_flows     DOUBLE PRECISION NOT NULL,
+    net_flows       DOUBLE PRECISION NOT NULL,
+    PRIMARY KEY (pot_id, month)
+);
+
+-- Fill from the existing rows; the same query as PotMonthlyRollupRepo.rebuildAll. Nothing runs this
+-- script automatically: on a ddl-auto schema MonthlyRollupService.backfillIfEmpty does the same at
+-- startup, and POST /api/admin/rollups/rebuild does it on demand.
+DELETE FROM pot_monthly_rollup;
+INSERT INTO pot_monthly_rollup (pot_id, month, closing_date, closing_balance, contributions,
+                                employer_match, transfers_in, rebates, transfers_out, withdrawals,
+                                fees, other_flows, net_flows)
+SELECT COALESCE(s.pot_id, f.pot_id), COALESCE(s.month, f.month), s.date, s.balance,
+       COALESCE(f.contributions, 0), COALESCE(f.employer_match, 0), COALESCE(f.transfers_in, 0),
+       COALESCE(f.rebates, 0), COALESCE(f.transfers_out, 0), COALESCE(f.withdrawals, 0),
+       COALESCE(f.fees, 0), COALESCE(f.other_flows, 0), COALESCE(f.net_flows, 0)
+FROM (SELECT pot_id, month, date, balance
+      FROM (SELECT pot_id, CAST(date_trunc('month', date) AS DATE) AS month, date, balance,
+                   row_number() OVER (PARTITION BY pot_id, date_trunc('month', date)
+                                      ORDER BY date DESC, id DESC) AS rn
+            FROM snapshot WHERE pot_id IS NOT NULL) ranked
+      WHERE rn = 1) s
+FULL OUTER JOIN (
+      SELECT pot_id, CAST(date_trunc('month', date) AS DATE) AS month,
+             SUM(CASE WHEN lower(type) = 'contribution' THEN amount ELSE 0 END) AS contributions,
+             SUM(CASE WHEN lower(type) = 'employer_match' THEN amount ELSE 0 END) AS employer_match,
+             SUM(CASE WHEN lower(type) = 'transfer_in' THEN amount ELSE 0 END) AS transfers_in,
+             SUM(CASE WHEN lower(type) = 'rebate' THEN amount ELSE 0 END) AS rebates,
+             SUM(CASE WHEN lower(type) = 'transfer_out' THEN amount ELSE 0 END) AS transfers_out,
+             SUM(CASE WHEN lower(type) = 'withdrawal' THEN amount ELSE 0 END) AS withdrawals,
+             SUM(CASE WHEN lower(type) = 'fee' THEN amount ELSE 0 END) AS fees,
+             SUM(CASE WHEN lower(type) IN ('contribution', 'employer_match', 'transfer_in', 'rebate',
+                                           'transfer_out', 'withdrawal', 'fee') THEN 0 ELSE amount END) AS other_flows,
+             SUM(amount) AS net_flows
+      FROM transaction WHERE pot_id IS NOT NULL GROUP BY 1, 2) f
+ON s.pot_id = f.pot_id AND s.month = f.month;
@@ -5,6 +5,7 @@ import com.gillianbc.pensionstracker.dto.PotDto;
 import com.gillianbc.pensionstracker.dto.ProviderDto;
 import com.gillianbc.pensionstracker.dto.SnapshotDto;
 import com.gillianbc.pensionstracker.dto.TransactionDto;
+import com.gillianbc.pensionstracker.repo.PotMonthlyRollupRepo;
 import com.gillianbc.pensionstracker.repo.PotRepo;
 import com.gillianbc.pensionstracker.repo.ProviderRepo;
 import com.gillianbc.pensionstracker.repo.SnapshotRepo;
@@ -44,9 +45,12 @@ class AbstractControllerTest {
     protected SnapshotRepo snapshotRepo;
     @Autowired
     protected PotRepo potRepo;
+    @Autowired
+    protected PotMonthlyRollupRepo rollupRepo;
 
     @BeforeEach
     void tearDown() {
+        rollupRepo.deleteAllInBatch();
         snapshotRepo.deleteAll();
         transactionRepo.deleteAll();
         potRepo.deleteAll();
@@ -99,8 +103,12 @@ class AbstractControllerTest {
     }
 
     public TransactionDto postTransactionDto(PotDto pot) throws Exception {
+        return postTransactionDto(pot, "IN", 77.25, TEST_DATE);
+    }
+
+    public TransactionDto postTransactionDto(PotDto pot, String type, double amount, LocalDate date) throws Exception {
         TransactionDto transaction = new TransactionDto(null, pot.id(),
-                TEST_DATE, "IN", Double.valueOf(77.25), "Contribution");
+                date, type, Double.valueOf(amount), "Contribution");
         String transactionJson = objectMapper.writeValueAsString(transaction);
 
         String transactionResp = mockMvc.perform(post("/api/transactions")
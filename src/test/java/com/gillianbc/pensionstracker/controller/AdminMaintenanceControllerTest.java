@@ -1,5 +1,11 @@
 package com.gillianbc.pensionstracker.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gillianbc.pensionstracker.model.Pot;
+import com.gillianbc.pensionstracker.model.Provider;
+import com.gillianbc.pensionstracker.model.Snapshot;
+import com.gillianbc.pensionstracker.model.Transaction;
 import com.gillianbc.pensionstracker.repo.PotRepo;
 import com.gillianbc.pensionstracker.repo.ProviderRepo;
 import com.gillianbc.pensionstracker.repo.SnapshotRepo;
@@ -12,7 +18,14 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -21,6 +34,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 class AdminMaintenanceControllerTest {
     @Autowired
     private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
 
     @Autowired
     private ProviderRepo providerRepo;
@@ -51,4 +66,130 @@ class AdminMaintenanceControllerTest {
         mockMvc.perform(post("/api/admin/clear/pots"))
                 .andExpect(status().isNoContent());
     }
+
+    @Test
+    void reportCacheStats_countsHitsAndMisses() throws Exception {
+        Pot pot = savePotWithRows(3);
+        JsonNode before = cacheStats("reports");
+
+        // built and cached on the first request, served from the cache on the second
+        mockMvc.perform(get("/api/reports/" + pot.getId())).andExpect(status().isOk());
+        mockMvc.perform(get("/api/reports/" + pot.getId())).andExpect(status().isOk());
+
+        JsonNode after = cacheStats("reports");
+        assertThat(after.get("misses").asLong() - before.get("misses").asLong()).isEqualTo(1);
+        assertThat(after.get("hits").asLong() - before.get("hits").asLong()).isEqualTo(1);
+        assertThat(after.get("hitRate").isNumber()).isTrue();
+        assertThat(after.get("evictions").isNumber()).isTrue();
+    }
+
+    @Test
+    void twrCacheStats_countsHitsAndMisses() throws Exception {
+        Pot pot = savePotWithRows(3);
+        JsonNode before = cacheStats("twr");
+
+        mockMvc.perform(get("/api/reports/" + pot.getId() + "/twr")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/reports/" + pot.getId() + "/twr")).andExpect(status().isOk());
+
+        JsonNode after = cacheStats("twr");
+        assertThat(after.get("misses").asLong() - before.get("misses").asLong()).isEqualTo(1);
+        assertThat(after.get("hits").asLong() - before.get("hits").asLong()).isEqualTo(1);
+    }
+
+    @Test
+    void clearPots_deletesPotsAndTheirRowsButKeepsProviders() throws Exception {
+        Pot pot = savePotWithRows(10);
+
+        mockMvc.perform(post("/api/admin/clear/pots"))
+                .andExpect(status().isNoContent());
+
+        assertThat(potRepo.count()).isZero();
+        assertThat(snapshotRepo.count()).isZero();
+        assertThat(transactionRepo.count()).isZero();
+        assertThat(providerRepo.existsById(pot.getProvider().getId())).isTrue();
+    }
+
+    @Test
+    void clearsAndPurges_evictTheSecondLevelCache() throws Exception {
+        Pot purged = savePotWithRows(1);
+        Pot cleared = savePotWithRows(1);
+        assertThat(potRepo.findById(cleared.getId())).isPresent();
+
+        mockMvc.perform(post("/api/admin/purge/pots/" + purged.getId()))
+                .andExpect(status().isOk());
+        assertThat(potRepo.findById(purged.getId())).isEmpty();
+        assertThat(potRepo.findById(cleared.getId())).isPresent();
+
+        mockMvc.perform(post("/api/admin/clear/pots"))
+                .andExpect(status().isNoContent());
+        assertThat(potRepo.findById(cleared.getId())).isEmpty();
+        assertThat(providerRepo.findById(cleared.getProvider().getId())).isPresent();
+
+        mockMvc.perform(post("/api/admin/clear"))
+                .andExpect(status().isNoContent());
+        assertThat(providerRepo.findById(cleared.getProvider().getId())).isEmpty();
+    }
+
+    @Test
+    void purgePot_deletesOnlyThatPotInChunks() throws Exception {
+        // the test chunk size is 100, so this takes several chunks per table
+        Pot purged = savePotWithRows(250);
+        Pot kept = savePotWithRows(5);
+
+        mockMvc.perform(post("/api/admin/purge/pots/" + purged.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.potId").value(purged.getId()))
+                .andExpect(jsonPath("$.snapshotsDeleted").value(250))
+                .andExpect(jsonPath("$.transactionsDeleted").value(250));
+
+        assertThat(potRepo.existsById(purged.getId())).isFalse();
+        assertThat(snapshotRepo.findByPotIdOrderByDate(kept.getId())).hasSize(5);
+        assertThat(transactionRepo.findByPotIdOrderByDate(kept.getId())).hasSize(5);
+    }
+
+    @Test
+    void purgePot_unknownPotReturnsNotFound() throws Exception {
+        mockMvc.perform(post("/api/admin/purge/pots/9999999"))
+                .andExpect(status().isNotFound());
+    }
+
+    private JsonNode cacheStats(String cache) throws Exception {
+        String json = mockMvc.perform(get("/api/admin/cache/" + cache))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(json);
+    }
+
+    private Pot savePotWithRows(int rows) {
+        Provider provider = new Provider();
+        provider.setName("Purge Provider");
+        provider = providerRepo.save(provider);
+
+        Pot pot = new Pot();
+        pot.setProvider(provider);
+        pot.setName("Purge Pot");
+        pot.setPlanNumber("PN-PURGE");
+        pot = potRepo.save(pot);
+
+        List<Snapshot> snapshots = new ArrayList<>();
+        List<Transaction> transactions = new ArrayList<>();
+        LocalDate date = LocalDate.of(2020, 1, 1);
+        for (int i = 0; i < rows; i++) {
+            Snapshot s = new Snapshot();
+            s.setPot(pot);
+            s.setDate(date.plusDays(i));
+            s.setBalance(1000.0 + i);
+            snapshots.add(s);
+
+            Transaction t = new Transaction();
+            t.setPot(pot);
+            t.setDate(date.plusDays(i));
+            t.setType("contribution");
+            t.setAmount(10.0);
+            transactions.add(t);
+        }
+        snapshotRepo.saveAll(snapshots);
+        transactionRepo.saveAll(transactions);
+        return pot;
+    }
 }
@@ -4,15 +4,39 @@ import com.gillianbc.pensionstracker.dto.PotDto;
 import com.gillianbc.pensionstracker.dto.ProviderDto;
 import com.gillianbc.pensionstracker.dto.SnapshotDto;
 import com.gillianbc.pensionstracker.dto.TransactionDto;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.gillianbc.pensionstracker.model.Pot;
+import com.gillianbc.pensionstracker.model.PotMonthlyRollup;
+import com.gillianbc.pensionstracker.model.Provider;
+import com.gillianbc.pensionstracker.service.MonthlyRollupService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 class ApiControllerTest extends AbstractControllerTest {
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private MonthlyRollupService monthlyRollupService;
+
     @Test
     void providersCrudTest() throws Exception {
         // post
@@ -33,6 +57,74 @@ class ApiControllerTest extends AbstractControllerTest {
                 .andExpect(jsonPath("$[0].notes").value("My notes"));
     }
 
+    @Test
+    void pageProviders_walksAllRowsByKeyset() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            postProviderDto("Provider " + i, "");
+        }
+
+        List<String> names = new ArrayList<>();
+        long after = 0;
+        int pages = 0;
+        while (true) {
+            String body = mockMvc.perform(get("/api/providers/page")
+                            .param("after", String.valueOf(after))
+                            .param("size", "2"))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            JsonNode page = objectMapper.readTree(body);
+            page.get("items").forEach(item -> names.add(item.get("name").asText()));
+            pages++;
+            if (page.get("nextAfter").isNull()) {
+                break;
+            }
+            after = page.get("nextAfter").asLong();
+        }
+
+        assertEquals(List.of("Provider 0", "Provider 1", "Provider 2", "Provider 3", "Provider 4"), names);
+        assertEquals(3, pages);
+    }
+
+    @Test
+    void pagePots_rejectsOversizedPage() throws Exception {
+        mockMvc.perform(get("/api/pots/page").param("size", "100000"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void streamPots_writesOneJsonObjectPerLine() throws Exception {
+        ProviderDto provider = postProviderDto("StreamProvider", "");
+        PotDto first = postPotDto(provider);
+        PotDto second = postPotDto(provider);
+
+        MvcResult result = mockMvc.perform(get("/api/pots/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(first, objectMapper.readValue(lines[0], PotDto.class));
+        assertEquals(second, objectMapper.readValue(lines[1], PotDto.class));
+    }
+
+    @Test
+    void streamProviders_writesOneJsonObjectPerLine() throws Exception {
+        ProviderDto provider = postProviderDto("StreamProvider", "notes");
+
+        MvcResult result = mockMvc.perform(get("/api/providers/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals(provider, objectMapper.readValue(body.trim(), ProviderDto.class));
+    }
+
     @Test
     void potsCrudTest() throws Exception {
         // Create provider needed for pot
@@ -60,6 +152,87 @@ class ApiControllerTest extends AbstractControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void listPots_usesOneStatementRegardlessOfPotCount() throws Exception {
+        Provider provider = new Provider();
+        provider.setName("ManyPotsProvider");
+        provider = providerRepo.save(provider);
+        List<Pot> many = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            Pot pot = new Pot();
+            pot.setProvider(provider);
+            pot.setName("Pot " + i);
+            pot.setPlanNumber("PN" + i);
+            many.add(pot);
+        }
+        potRepo.saveAll(many);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(get("/api/pots"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(25))
+                .andExpect(jsonPath("$[0].providerId").value(provider.getId()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+
+        statistics.clear();
+        mockMvc.perform(get("/api/pots/" + many.get(0).getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.providerId").value(provider.getId()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void reads_selectDtosWithoutLoadingEntities() throws Exception {
+        ProviderDto provider = postProviderDto("ProjectionProvider", "notes");
+        PotDto pot = postPotDto(provider);
+        SnapshotDto snapshot = postSnapshotDto(pot);
+        TransactionDto transaction = postTransactionDto(pot);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(get("/api/providers"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("ProjectionProvider"));
+        mockMvc.perform(get("/api/providers/" + provider.id()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.notes").value("notes"));
+        mockMvc.perform(get("/api/snapshots/" + snapshot.id()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.potId").value(pot.id()));
+        mockMvc.perform(get("/api/transactions/" + transaction.id()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.potId").value(pot.id()));
+        assertEquals(4, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+
+        mockMvc.perform(get("/api/snapshots/9999999")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/transactions/9999999")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void writes_findPotsAndProvidersInTheSecondLevelCache() throws Exception {
+        ProviderDto provider = postProviderDto("CachedProvider", "");
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        PotDto pot = postPotDto(provider);
+        postSnapshotDto(pot);
+        postSnapshotDto(pot, 200.0, TEST_DATE.plusDays(1));
+        postTransactionDto(pot);
+
+        // the provider and pot were cached when saved, so no write selects either of them
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(1, statistics.getDomainDataRegionStatistics(Provider.class.getName()).getHitCount());
+        assertEquals(3, statistics.getDomainDataRegionStatistics(Pot.class.getName()).getHitCount());
+        assertEquals(0, statistics.getSecondLevelCacheMissCount());
+
+        mockMvc.perform(get("/api/admin/cache/entities"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.providers.hits").isNumber())
+                .andExpect(jsonPath("$.pots.hitRate").isNumber());
+    }
+
     @Test
     void snapshotsCrudTest() throws Exception {
         // need a pot first
@@ -83,6 +256,167 @@ class ApiControllerTest extends AbstractControllerTest {
         ;
     }
 
+    @Test
+    void bulkSnapshots_savesValidRecordsAndReportsFailures() throws Exception {
+        PotDto pot = postPotDto(postProviderDto("BulkProvider", ""));
+        List<SnapshotDto> records = List.of(
+                new SnapshotDto(null, pot.id(), TEST_DATE, 100.0, "BULK", null),
+                new SnapshotDto(null, 9999999L, TEST_DATE, 100.0, "BULK", null),
+                new SnapshotDto(null, pot.id(), TEST_DATE.plusDays(1), null, "BULK", null),
+                new SnapshotDto(null, pot.id(), TEST_DATE.plusDays(2), 102.0, "BULK", null));
+
+        mockMvc.perform(post("/api/snapshots/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(records)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received").value(4))
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.ids[0]").isNumber())
+                .andExpect(jsonPath("$.ids[1]").doesNotExist())
+                .andExpect(jsonPath("$.ids[2]").doesNotExist())
+                .andExpect(jsonPath("$.ids[3]").isNumber())
+                .andExpect(jsonPath("$.errors.length()").value(2))
+                .andExpect(jsonPath("$.errors[0].index").value(1))
+                .andExpect(jsonPath("$.errors[1].index").value(2));
+
+        assertEquals(2, snapshotRepo.findByPotIdOrderByDate(pot.id()).size());
+    }
+
+    @Test
+    void bulkTransactions_readsNdjsonAcrossSeveralBatches() throws Exception {
+        PotDto pot = postPotDto(postProviderDto("BulkProvider", ""));
+        int count = 1234;
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            TransactionDto t = new TransactionDto(null, pot.id(), TEST_DATE.plusDays(i), "contribution", 10.0, null);
+            ndjson.append(objectMapper.writeValueAsString(t)).append('\n');
+        }
+
+        mockMvc.perform(post("/api/transactions/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(ndjson.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received").value(count))
+                .andExpect(jsonPath("$.created").value(count))
+                .andExpect(jsonPath("$.errors.length()").value(0));
+
+        assertEquals(count, transactionRepo.findByPotIdOrderByDate(pot.id()).size());
+    }
+
+    @Test
+    void potTimeSeries_bucketsAndDownsamples() throws Exception {
+        PotDto pot = postPotDto(postProviderDto("SeriesProvider", ""));
+        // three years of daily balances, and 10.00 paid in on the 1st of every month
+        List<SnapshotDto> snapshots = new ArrayList<>();
+        List<TransactionDto> transactions = new ArrayList<>();
+        for (int i = 0; i < 3 * 365; i++) {
+            snapshots.add(new SnapshotDto(null, pot.id(), TEST_DATE.plusDays(i), 1000.0 + i, "BULK", null));
+        }
+        for (int m = 0; m < 36; m++) {
+            transactions.add(new TransactionDto(null, pot.id(), TEST_DATE.plusMonths(m), "contribution", 10.0, null));
+        }
+        mockMvc.perform(post("/api/snapshots/bulk").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(snapshots))).andExpect(status().isOk());
+        mockMvc.perform(post("/api/transactions/bulk").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(transactions))).andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/pots/" + pot.id() + "/timeseries").param("bucket", "month"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.points.length()").value(36))
+                .andExpect(jsonPath("$.points[0].date").value("2023-01-31"))
+                .andExpect(jsonPath("$.points[0].balance").value(1030.0))
+                .andExpect(jsonPath("$.points[0].netFlows").value(10.0));
+
+        mockMvc.perform(get("/api/pots/" + pot.id() + "/timeseries")
+                        .param("bucket", "year").param("from", "2024-01-01").param("to", "2024-12-31"))
+                .andExpect(jsonPath("$.points.length()").value(1))
+                .andExpect(jsonPath("$.points[0].date").value("2024-12-31"))
+                .andExpect(jsonPath("$.points[0].netFlows").value(120.0));
+
+        // downsampled to 10 points: the ends are kept and no flows are lost
+        MvcResult result = mockMvc.perform(get("/api/pots/" + pot.id() + "/timeseries")
+                        .param("bucket", "day").param("maxPoints", "10"))
+                .andExpect(jsonPath("$.points.length()").value(10))
+                .andExpect(jsonPath("$.points[0].date").value(TEST_DATE.toString()))
+                .andExpect(jsonPath("$.points[9].date").value(TEST_DATE.plusDays(3 * 365 - 1).toString()))
+                .andReturn();
+        double flows = 0;
+        for (JsonNode point : objectMapper.readTree(result.getResponse().getContentAsString()).get("points")) {
+            flows += point.get("netFlows").asDouble();
+        }
+        assertEquals(360.0, flows, 0.001);
+    }
+
+    @Test
+    void writesKeepMonthlyRollupsInStep() throws Exception {
+        PotDto pot = postPotDto(postProviderDto("RollupProvider", ""));
+        postSnapshotDto(pot, 100.00, TEST_DATE);
+        postSnapshotDto(pot, 110.00, TEST_DATE.plusDays(20));
+        postSnapshotDto(pot, 105.00, TEST_DATE.plusDays(10)); // earlier in the month: not the closing balance
+        postTransactionDto(pot, "contribution", 50.00, TEST_DATE.plusDays(3));
+        postTransactionDto(pot, "Fee", -1.25, TEST_DATE.plusDays(4));
+        postTransactionDto(pot, "IN", 7.50, TEST_DATE.plusMonths(2));
+        List<TransactionDto> bulk = List.of(
+                new TransactionDto(null, pot.id(), TEST_DATE.plusDays(5), "EMPLOYER_MATCH", 25.0, null),
+                new TransactionDto(null, pot.id(), TEST_DATE.plusMonths(1), "withdrawal", -10.0, null),
+                new TransactionDto(null, pot.id(), TEST_DATE.plusMonths(1).plusDays(1), "rebate", 2.5, null));
+        mockMvc.perform(post("/api/transactions/bulk").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(bulk))).andExpect(status().isOk());
+
+        List<PotMonthlyRollup> maintained = rollupRepo.findByIdPotIdAndIdStartOfMonthBetweenOrderByIdStartOfMonth(
+                pot.id(), TEST_DATE, TEST_DATE.plusYears(1));
+        assertEquals(3, maintained.size());
+        assertEquals(110.0, maintained.get(0).getClosingBalance());
+        assertEquals(50.0, maintained.get(0).getContributions());
+        assertEquals(73.75, maintained.get(0).getNetFlows());
+
+        mockMvc.perform(post("/api/admin/rollups/rebuild"))
+                .andExpect(status().isNoContent());
+        assertEquals(maintained, rollupRepo.findByIdPotIdAndIdStartOfMonthBetweenOrderByIdStartOfMonth(
+                pot.id(), TEST_DATE, TEST_DATE.plusYears(1)));
+
+        // as on a database whose rollup table ddl-auto has just created
+        rollupRepo.deleteAllInBatch();
+        monthlyRollupService.backfillIfEmpty();
+        assertEquals(maintained, rollupRepo.findByIdPotIdAndIdStartOfMonthBetweenOrderByIdStartOfMonth(
+                pot.id(), TEST_DATE, TEST_DATE.plusYears(1)));
+    }
+
+    @Test
+    void potTimeSeries_defaultsToThePotsDatesAndReportsFlowsAfterTheLastSnapshot() throws Exception {
+        PotDto pot = postPotDto(postProviderDto("SeriesProvider", ""));
+        mockMvc.perform(get("/api/pots/" + pot.id() + "/timeseries"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.from").doesNotExist())
+                .andExpect(jsonPath("$.points.length()").value(0));
+
+        postSnapshotDto(pot, 100.00, TEST_DATE);
+        postSnapshotDto(pot, 120.00, TEST_DATE.plusDays(40));
+        postTransactionDto(pot, "contribution", 15.00, TEST_DATE.plusDays(35));
+        postTransactionDto(pot, "contribution", 25.00, TEST_DATE.plusDays(60));
+
+        for (String bucket : List.of("month", "day")) {
+            mockMvc.perform(get("/api/pots/" + pot.id() + "/timeseries").param("bucket", bucket))
+                    .andExpect(jsonPath("$.from").value(TEST_DATE.toString()))
+                    .andExpect(jsonPath("$.to").value(TEST_DATE.plusDays(60).toString()))
+                    .andExpect(jsonPath("$.points.length()").value(2))
+                    .andExpect(jsonPath("$.points[1].date").value(TEST_DATE.plusDays(40).toString()))
+                    .andExpect(jsonPath("$.points[1].netFlows").value(15.0))
+                    .andExpect(jsonPath("$.pendingFlows").value(25.0));
+        }
+    }
+
+    @Test
+    void potTimeSeries_rejectsBadParameters() throws Exception {
+        PotDto pot = postPotDto(postProviderDto("SeriesProvider", ""));
+        mockMvc.perform(get("/api/pots/" + pot.id() + "/timeseries").param("bucket", "fortnight"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/pots/" + pot.id() + "/timeseries").param("maxPoints", "2"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/pots/9999999/timeseries"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void transactionCrudTest() throws Exception {
         // Create provider
@@ -0,0 +1,364 @@
+package com.gillianbc.pensionstracker.controller;
+
+import com.gillianbc.pensionstracker.dto.ImportJobDto;
+import com.gillianbc.pensionstracker.dto.PotDto;
+import com.gillianbc.pensionstracker.dto.ProviderDto;
+import com.gillianbc.pensionstracker.dto.SheetImportDto;
+import com.gillianbc.pensionstracker.service.ImportJobService;
+import com.gillianbc.pensionstracker.service.SnapshotImportService;
+import com.gillianbc.pensionstracker.service.WorkbookImportService;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class ImportControllerTest extends AbstractControllerTest {
+
+    @Autowired
+    private SnapshotImportService snapshotImportService;
+
+    @Autowired
+    private WorkbookImportService workbookImportService;
+
+    @Autowired
+    private ImportJobService importJobService;
+
+    @Test
+    void submitExcel_runsInBackgroundAndReportsProgress(@TempDir Path tempDir) throws Exception {
+        PotDto pot = postPotDto(postProviderDto("ImportJobProv", ""));
+        Path excel = tempDir.resolve("snapshots.xlsx");
+        writeWorkbook(excel, new String[][]{
+                {"date", "balance"},
+                {"2024-01-01", "100,000.00"},
+                {"2024-02-01", "101500.27"},
+                {"not-a-date", "1"}});
+
+        MvcResult submitted = mockMvc.perform(post("/api/imports/excel/" + pot.id())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"excelPath\": \"" + excel.toAbsolutePath() + "\"}"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.jobId").exists())
+                .andExpect(jsonPath("$.potId").value(pot.id()))
+                .andExpect(jsonPath("$.source").value("snapshots.xlsx"))
+                .andReturn();
+        ImportJobDto job = objectMapper.readValue(submitted.getResponse().getContentAsString(), ImportJobDto.class);
+        assertEquals("/api/imports/" + job.jobId(), submitted.getResponse().getHeader("Location"));
+
+        ImportJobDto finished = awaitFinished(job.jobId());
+        assertEquals("SUCCEEDED", finished.status());
+        assertEquals(3, finished.rowsProcessed());
+        assertEquals(2, finished.rowsImported());
+        assertEquals(1, finished.errorCount());
+        assertTrue(finished.errors().get(0).startsWith("Row 4 error"));
+        assertNotNull(finished.startedAt());
+        assertNotNull(finished.finishedAt());
+        assertEquals(2, snapshotRepo.findByPotIdOrderByDate(pot.id()).size());
+    }
+
+    @Test
+    void uploadMultipart_csvWithBlankLinesBeforeTheHeader_skipsTheHeader() throws Exception {
+        PotDto pot = postPotDto(postProviderDto("ImportUploadBlankProv", ""));
+        byte[] csv = "\uFEFF\r\n\ndate,balance\n2024-01-01,100\nbad,1\n".getBytes(StandardCharsets.UTF_8);
+
+        String response = mockMvc.perform(multipart("/api/imports/upload/" + pot.id())
+                        .file(new MockMultipartFile("file", "extract.csv", "text/csv", csv)))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getContentAsString();
+
+        ImportJobDto finished = awaitFinished(objectMapper.readValue(response, ImportJobDto.class).jobId());
+        assertEquals(1, finished.rowsImported());
+        assertEquals(1, finished.errorCount());
+        assertTrue(finished.errors().get(0).startsWith("Row 5 error"), finished.errors().get(0));
+    }
+
+    @Test
+    void uploadMultipart_csv_importsRows() throws Exception {
+        PotDto pot = postPotDto(postProviderDto("ImportUploadCsvProv", ""));
+        byte[] csv = "date,balance\n2024-01-01,\"100,000.00\"\n2024-02-01,101500.27\n".getBytes(StandardCharsets.UTF_8);
+
+        String response = mockMvc.perform(multipart("/api/imports/upload/" + pot.id())
+                        .file(new MockMultipartFile("file", "extract.csv", "text/csv", csv)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.source").value("extract.csv"))
+                .andReturn().getResponse().getContentAsString();
+
+        ImportJobDto finished = awaitFinished(objectMapper.readValue(response, ImportJobDto.class).jobId());
+        assertEquals("SUCCEEDED", finished.status());
+        assertEquals(2, finished.rowsImported());
+        assertEquals(0, finished.errorCount());
+        assertEquals(100_000.00, snapshotRepo.findByPotIdOrderByDate(pot.id()).get(0).getBalance());
+    }
+
+    @Test
+    void uploadRaw_xlsxAndCsvBodies_importRows(@TempDir Path tempDir) throws Exception {
+        PotDto pot = postPotDto(postProviderDto("ImportUploadRawProv", ""));
+        Path excel = tempDir.resolve("snapshots.xlsx");
+        writeWorkbook(excel, new String[][]{{"date", "balance"}, {"2024-01-01", "100"}});
+
+        String xlsxResponse = mockMvc.perform(post("/api/imports/upload/" + pot.id())
+                        .contentType(ImportController.XLSX_CONTENT_TYPE)
+                        .content(Files.readAllBytes(excel)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.source").value("upload.xlsx"))
+                .andReturn().getResponse().getContentAsString();
+        String csvResponse = mockMvc.perform(post("/api/imports/upload/" + pot.id())
+                        .param("filename", "march.csv")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content("2024-03-01,300\r\n2024-04-01,400\r\n"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.source").value("march.csv"))
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals(1, awaitFinished(objectMapper.readValue(xlsxResponse, ImportJobDto.class).jobId()).rowsImported());
+        assertEquals(2, awaitFinished(objectMapper.readValue(csvResponse, ImportJobDto.class).jobId()).rowsImported());
+        assertEquals(3, snapshotRepo.findByPotIdOrderByDate(pot.id()).size());
+    }
+
+    @Test
+    void uploadRaw_unknownPot_returnsNotFound() throws Exception {
+        mockMvc.perform(post("/api/imports/upload/9999999")
+                        .contentType("text/csv")
+                        .content("2024-03-01,300\n"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void uploadRaw_overTheSizeLimit_isRefused() throws Exception {
+        PotDto pot = postPotDto(postProviderDto("ImportRawLimitProv", ""));
+        MockMvc smallLimit = MockMvcBuilders
+                .standaloneSetup(new ImportController(importJobService, DataSize.ofBytes(10)))
+                .build();
+
+        smallLimit.perform(post("/api/imports/upload/" + pot.id())
+                        .contentType("text/csv")
+                        .content("2024-03-01,300\n"))
+                .andExpect(status().isPayloadTooLarge());
+        assertEquals(0, snapshotRepo.findByPotIdOrderByDate(pot.id()).size());
+    }
+
+    @Test
+    void uploadWorkbooks_importsEachSheetIntoItsPot() throws Exception {
+        ProviderDto provider = postProviderDto("WorkbookProv", "");
+        PotDto planA = postPot(provider, "Pot A", "PLAN-A");
+        PotDto planB = postPot(provider, "Pot B", "PLAN-B");
+        PotDto named = postPot(provider, "Named Pot", "PLAN-C");
+        postPot(provider, "Dup 1", "DUP");
+        postPot(provider, "Dup 2", "DUP");
+
+        // PLAN-A spans several writer batches; PLAN-B has a bad row
+        String[][] planARows = new String[1201][];
+        planARows[0] = new String[]{"date", "balance"};
+        for (int i = 1; i < planARows.length; i++) {
+            planARows[i] = new String[]{LocalDate.of(2000, 1, 1).plusDays(i).toString(), String.valueOf(i)};
+        }
+        byte[] workbook = workbookBytes(Map.of(
+                "PLAN-A", planARows,
+                "PLAN-B", new String[][]{{"2024-01-01", "10"}, {"bad", "1"}},
+                "DUP", new String[][]{{"2024-01-01", "10"}},
+                "Nobody", new String[][]{{"2024-01-01", "10"}}));
+        byte[] csv = "date,balance\n2024-01-01,5\n2024-02-01,6\n".getBytes(StandardCharsets.UTF_8);
+
+        String response = mockMvc.perform(multipart("/api/imports/workbooks")
+                        .file(new MockMultipartFile("files", "provider.xlsx", ImportController.XLSX_CONTENT_TYPE, workbook))
+                        .file(new MockMultipartFile("files", "Named Pot.csv", "text/csv", csv)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.potId").doesNotExist())
+                .andExpect(jsonPath("$.source").value("2 files"))
+                .andReturn().getResponse().getContentAsString();
+
+        ImportJobDto finished = awaitFinished(objectMapper.readValue(response, ImportJobDto.class).jobId());
+        assertEquals("SUCCEEDED", finished.status());
+        assertEquals(1200 + 1 + 2, finished.rowsImported());
+        assertEquals(5, finished.sheets().size());
+        Map<String, SheetImportDto> sheets = finished.sheets().stream()
+                .collect(Collectors.toMap(SheetImportDto::sheet, sheet -> sheet));
+
+        assertEquals(planA.id(), sheets.get("PLAN-A").potId());
+        assertEquals("IMPORTED", sheets.get("PLAN-A").status());
+        assertEquals(1200, sheets.get("PLAN-A").rowsImported());
+        assertEquals(1, sheets.get("PLAN-B").rowsImported());
+        assertEquals(1, sheets.get("PLAN-B").rowsRejected());
+        assertTrue(sheets.get("PLAN-B").errors().get(0).startsWith("Row 2 error"));
+        assertEquals("AMBIGUOUS", sheets.get("DUP").status());
+        assertEquals("UNMATCHED", sheets.get("Nobody").status());
+        assertEquals(named.id(), sheets.get("Named Pot").potId());
+        assertEquals("Named Pot.csv", sheets.get("Named Pot").file());
+
+        assertEquals(1200, snapshotRepo.findByPotIdOrderByDate(planA.id()).size());
+        assertEquals(1, snapshotRepo.findByPotIdOrderByDate(planB.id()).size());
+        assertEquals(2, snapshotRepo.findByPotIdOrderByDate(named.id()).size());
+    }
+
+    @Test
+    void submitWorkbooks_unreadableFile_isReportedAndOthersImported(@TempDir Path tempDir) throws Exception {
+        PotDto pot = postPot(postProviderDto("WorkbookPathProv", ""), "Path Pot", "PLAN-P");
+        Path good = tempDir.resolve("good.xlsx");
+        Files.write(good, workbookBytes(Map.of("PLAN-P", new String[][]{{"2024-01-01", "10"}})));
+        Path bad = tempDir.resolve("bad.xlsx");
+        Files.writeString(bad, "not a workbook");
+
+        String response = mockMvc.perform(post("/api/imports/workbooks")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("paths", List.of(
+                                good.toAbsolutePath().toString(), bad.toAbsolutePath().toString())))))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getContentAsString();
+
+        ImportJobDto finished = awaitFinished(objectMapper.readValue(response, ImportJobDto.class).jobId());
+        assertEquals(1, finished.rowsImported());
+        assertEquals(2, finished.sheets().size());
+        SheetImportDto failed = finished.sheets().stream().filter(sheet -> sheet.file().equals("bad.xlsx"))
+                .findFirst().orElseThrow();
+        assertEquals("FAILED", failed.status());
+        assertNull(failed.sheet());
+        assertEquals(1, snapshotRepo.findByPotIdOrderByDate(pot.id()).size());
+    }
+
+    @Test
+    void submitExcel_unreadableFile_jobFails(@TempDir Path tempDir) throws Exception {
+        PotDto pot = postPotDto(postProviderDto("ImportJobBadFileProv", ""));
+        Path notExcel = tempDir.resolve("notes.xlsx");
+        Files.writeString(notExcel, "not a workbook");
+
+        String response = mockMvc.perform(post("/api/imports/excel/" + pot.id())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"excelPath\": \"" + notExcel.toAbsolutePath() + "\"}"))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getContentAsString();
+        ImportJobDto job = objectMapper.readValue(response, ImportJobDto.class);
+
+        ImportJobDto finished = awaitFinished(job.jobId());
+        assertEquals("FAILED", finished.status());
+        assertEquals(0, finished.rowsImported());
+        assertTrue(finished.errors().get(0).startsWith("Import failed"));
+    }
+
+    @Test
+    void submitExcel_unknownPot_returnsNotFound(@TempDir Path tempDir) throws Exception {
+        Path excel = tempDir.resolve("snapshots.xlsx");
+        writeWorkbook(excel, new String[][]{{"2024-01-01", "100"}});
+
+        mockMvc.perform(post("/api/imports/excel/9999999")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"excelPath\": \"" + excel.toAbsolutePath() + "\"}"))
+                .andExpect(status().isNotFound())
+                .andExpect(content().string(containsString("Pot not found")));
+    }
+
+    @Test
+    void submitExcel_missingFile_returnsBadRequest() throws Exception {
+        PotDto pot = postPotDto(postProviderDto("ImportJobNoFileProv", ""));
+
+        mockMvc.perform(post("/api/imports/excel/" + pot.id())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"excelPath\": \"/tmp/notfound.xlsx\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getJob_unknownJob_returnsNotFound() throws Exception {
+        mockMvc.perform(get("/api/imports/no-such-job"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void submit_whenPoolIsFull_returnsServiceUnavailableWithRetryAfter(@TempDir Path tempDir) throws Exception {
+        Path excel = tempDir.resolve("snapshots.xlsx");
+        writeWorkbook(excel, new String[][]{{"2024-01-01", "100"}});
+        ImportJobService full = new ImportJobService(potRepo, snapshotImportService, workbookImportService,
+                task -> {
+                    throw new TaskRejectedException("full");
+                },
+                Duration.ofHours(1));
+        MockMvc fullPool = MockMvcBuilders.standaloneSetup(new ImportController(full, DataSize.ofMegabytes(512))).build();
+
+        fullPool.perform(post("/api/imports/workbooks")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("paths", List.of(excel.toAbsolutePath().toString())))))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "30"))
+                .andExpect(content().string(containsString("Too many imports")));
+    }
+
+    private ImportJobDto awaitFinished(String jobId) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        while (true) {
+            String response = mockMvc.perform(get("/api/imports/" + jobId))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            ImportJobDto job = objectMapper.readValue(response, ImportJobDto.class);
+            if (job.finishedAt() != null) {
+                return job;
+            }
+            assertTrue(System.nanoTime() < deadline, "import job did not finish: " + response);
+            Thread.sleep(50);
+        }
+    }
+
+    private PotDto postPot(ProviderDto provider, String name, String planNumber) throws Exception {
+        PotDto pot = new PotDto(null, provider.id(), name, "GBP", "ACTIVE", null, planNumber, null);
+        String response = mockMvc.perform(post("/api/pots")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(pot)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(response, PotDto.class);
+    }
+
+    private static byte[] workbookBytes(Map<String, String[][]> sheets) throws Exception {
+        try (Workbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            for (Map.Entry<String, String[][]> sheet : new TreeMap<>(sheets).entrySet()) {
+                Sheet s = workbook.createSheet(sheet.getKey());
+                String[][] rows = sheet.getValue();
+                for (int i = 0; i < rows.length; i++) {
+                    Row row = s.createRow(i);
+                    row.createCell(0).setCellValue(rows[i][0]);
+                    row.createCell(1).setCellValue(rows[i][1]);
+                }
+            }
+            workbook.write(out);
+            return out.toByteArray();
+        }
+    }
+
+    private static void writeWorkbook(Path path, String[][] rows) throws Exception {
+        try (Workbook workbook = new XSSFWorkbook(); OutputStream out = Files.newOutputStream(path)) {
+            Sheet sheet = workbook.createSheet();
+            for (int i = 0; i < rows.length; i++) {
+                Row row = sheet.createRow(i);
+                row.createCell(0).setCellValue(rows[i][0]);
+                row.createCell(1).setCellValue(rows[i][1]);
+            }
+            workbook.write(out);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.gillianbc.pensionstracker.controller;
+
+import com.gillianbc.pensionstracker.dto.PotDto;
+import com.gillianbc.pensionstracker.service.SnapshotImportService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureObservability
+class MetricsControllerTest extends AbstractControllerTest {
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private SnapshotImportService snapshotImportService;
+
+    @Test
+    void reportRequest_recordsBuildPhasesAndRepositoryCalls() throws Exception {
+        PotDto pot = postPotDto(postProviderDto("MetricsProv", ""));
+        postSnapshotDto(pot, 100.0, LocalDate.of(2024, 1, 1));
+        postSnapshotDto(pot, 110.0, LocalDate.of(2024, 2, 1));
+
+        // the registry outlives each test, so compare against what earlier tests left behind
+        long callsBefore = reportCallCount();
+        double amountBefore = reportCallTotal();
+
+        mockMvc.perform(get("/api/reports/" + pot.id())).andExpect(status().isOk());
+        mockMvc.perform(get("/api/reports/portfolio")).andExpect(status().isOk());
+
+        assertTrue(registry.get("pensions.report.build").tag("phase", "query").timers().stream()
+                .anyMatch(timer -> timer.count() > 0));
+        assertTrue(registry.get("pensions.report.build").tag("phase", "compute").timers().stream()
+                .anyMatch(timer -> timer.count() > 0));
+
+        assertEquals(callsBefore + 1, reportCallCount());
+        assertTrue(reportCallTotal() > amountBefore);
+        // the portfolio's reports are built on the report pool, and still count against the request
+        assertTrue(registry.get("pensions.http.repository.calls")
+                .tag("uri", "/api/reports/portfolio").summary().totalAmount() > 0);
+    }
+
+    @Test
+    void twrRequests_moveTheTwrSeriesCacheMeters() throws Exception {
+        PotDto pot = postPotDto(postProviderDto("MetricsTwrProv", ""));
+        postSnapshotDto(pot, 100.0, LocalDate.of(2024, 1, 1));
+        postSnapshotDto(pot, 110.0, LocalDate.of(2024, 2, 1));
+        double misses = twrSeriesGets("miss");
+        double hits = twrSeriesGets("hit");
+
+        mockMvc.perform(get("/api/reports/" + pot.id() + "/twr")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/reports/" + pot.id() + "/twr")).andExpect(status().isOk());
+
+        assertEquals(misses + 1, twrSeriesGets("miss"));
+        assertEquals(hits + 1, twrSeriesGets("hit"));
+    }
+
+    @Test
+    void fileImport_countsRowsAndErrors(@TempDir Path tempDir) throws Exception {
+        PotDto pot = postPotDto(postProviderDto("MetricsImportProv", ""));
+        Path csv = tempDir.resolve("import.csv");
+        Files.writeString(csv, "date,balance\n2024-01-01,100\n2024-02-01,200\nbad,1\n");
+        double imported = rows("imported");
+        double rejected = rows("rejected");
+
+        snapshotImportService.importFile(pot.id(), csv.toFile(), SnapshotImportService.Format.CSV,
+                SnapshotImportService.Progress.NONE);
+
+        assertEquals(imported + 2, rows("imported"));
+        assertEquals(rejected + 1, rows("rejected"));
+        assertTrue(registry.get("pensions.import.duration").tag("kind", "file").timer().count() > 0);
+    }
+
+    @Test
+    void prometheusEndpoint_exposesAppAndPoolMeters() throws Exception {
+        PotDto pot = postPotDto(postProviderDto("MetricsScrapeProv", ""));
+        postSnapshotDto(pot);
+        mockMvc.perform(get("/api/reports/" + pot.id())).andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("pensions_report_build_seconds_bucket")))
+                .andExpect(content().string(containsString("pensions_http_repository_calls_bucket")))
+                .andExpect(content().string(containsString("pensions_import_rows_total")))
+                .andExpect(content().string(containsString("hikaricp_connections_pending")))
+                .andExpect(content().string(containsString("hikaricp_connections_acquire_seconds_bucket")))
+                .andExpect(content().string(containsString("cache_gets_total{cache=\"reports\"")));
+    }
+
+    // The summary is only registered by the first report request
+    private long reportCallCount() {
+        DistributionSummary calls = reportCalls();
+        return calls == null ? 0 : calls.count();
+    }
+
+    private double reportCallTotal() {
+        DistributionSummary calls = reportCalls();
+        return calls == null ? 0 : calls.totalAmount();
+    }
+
+    private DistributionSummary reportCalls() {
+        return registry.find("pensions.http.repository.calls").tag("uri", "/api/reports/{potId}").summary();
+    }
+
+    private double twrSeriesGets(String result) {
+        return registry.get("cache.gets").tag("cache", "twr-series").tag("result", result).functionCounter().count();
+    }
+
+    private double rows(String outcome) {
+        return registry.get("pensions.import.rows").tag("kind", "file").tag("outcome", outcome).counter().count();
+    }
+}
@@ -0,0 +1,102 @@
+package com.gillianbc.pensionstracker.controller;
+
+import com.gillianbc.pensionstracker.dto.PotDto;
+import com.gillianbc.pensionstracker.dto.PotReportDto;
+import com.gillianbc.pensionstracker.dto.ProviderDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class ReactiveControllerTest extends AbstractControllerTest {
+
+    @Test
+    void report_matchesTheBlockingReport() throws Exception {
+        PotDto pot = postPotDto(postProviderDto("ReactiveProv", ""));
+        postSnapshotDto(pot, 1000, LocalDate.of(2022, 1, 1));
+        postSnapshotDto(pot, 1150, LocalDate.of(2022, 7, 1));
+        postSnapshotDto(pot, 1400, LocalDate.of(2023, 1, 1));
+        postTransactionDto(pot, "contribution", 100, LocalDate.of(2022, 3, 1));
+        postTransactionDto(pot, "rebate", 5, LocalDate.of(2022, 4, 1));
+        postTransactionDto(pot, "fee", -3, LocalDate.of(2022, 9, 1));
+
+        String blocking = mockMvc.perform(get("/api/reports/" + pot.id()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String reactive = perform(get("/api/reactive/reports/" + pot.id()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals(objectMapper.readValue(blocking, PotReportDto.class),
+                objectMapper.readValue(reactive, PotReportDto.class));
+    }
+
+    @Test
+    void report_potWithoutSnapshots_isEmpty() throws Exception {
+        PotDto pot = postPotDto(postProviderDto("ReactiveEmptyProv", ""));
+
+        perform(get("/api/reactive/reports/" + pot.id()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.potId").value(pot.id()))
+                .andExpect(jsonPath("$.fromDate").doesNotExist());
+    }
+
+    @Test
+    void report_unknownPot_returnsNotFound() throws Exception {
+        perform(get("/api/reactive/reports/9999999"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void portfolio_rollsUpTheSelectedPots() throws Exception {
+        ProviderDto provider = postProviderDto("ReactivePortfolioProv", "");
+        PotDto a = postPotDto(provider);
+        PotDto b = postPotDto(provider);
+        postSnapshotDto(a, 100, LocalDate.of(2023, 1, 1));
+        postSnapshotDto(a, 120, LocalDate.of(2024, 1, 1));
+        postSnapshotDto(b, 50, LocalDate.of(2022, 1, 1));
+
+        perform(get("/api/reactive/reports/portfolio").param("potIds", a.id() + "," + b.id() + ",9999999"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pots.length()").value(2))
+                .andExpect(jsonPath("$.pots[0].potId").value(a.id()))
+                .andExpect(jsonPath("$.fromDate").value("2022-01-01"))
+                .andExpect(jsonPath("$.currentBalance").value(170.0));
+    }
+
+    @Test
+    void listEndpoints_returnJsonArraysOrStreamNdjson() throws Exception {
+        ProviderDto provider = postProviderDto("ReactiveListProv", "notes");
+        PotDto pot = postPotDto(provider);
+
+        perform(get("/api/reactive/providers"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("ReactiveListProv"));
+        perform(get("/api/reactive/pots"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(pot.id()))
+                .andExpect(jsonPath("$[0].providerId").value(provider.id()))
+                .andExpect(jsonPath("$[0].planNumber").value("PN123"));
+
+        String ndjson = perform(get("/api/reactive/pots/stream"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(pot, objectMapper.readValue(ndjson.lines().findFirst().orElseThrow(), PotDto.class));
+    }
+
+    private ResultActions perform(MockHttpServletRequestBuilder request) throws Exception {
+        MvcResult started = mockMvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started));
+    }
+}
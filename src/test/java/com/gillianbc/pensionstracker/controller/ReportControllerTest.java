@@ -44,10 +44,124 @@ class ReportControllerTest extends AbstractControllerTest {
                 .andExpect(jsonPath("$.growth").value(25.0))
                 .andExpect(jsonPath("$.cagrAnnualPercent").value((Object) 0.25))
                 .andExpect(jsonPath("$.growthPercent").value((Object) 0.25))
+                .andExpect(jsonPath("$.xirrAnnualPercent").value(25.0))
                 .andDo(print());
         
     }
 
+    @Test
+    void getReport_classifiesTransactionTypes() throws Exception {
+        ProviderDto provider = postProviderDto("TestProvider", "My notes");
+        PotDto pot = postPotDto(provider);
+
+        postSnapshotDto(pot, 1000.00, TEST_DATE);
+        postSnapshotDto(pot, 1500.00, TEST_DATE.plusYears(1));
+
+        // type codes are matched regardless of case
+        postTransactionDto(pot, "contribution", 200.00, TEST_DATE.plusMonths(1));
+        postTransactionDto(pot, "Employer_Match", 100.00, TEST_DATE.plusMonths(2));
+        postTransactionDto(pot, "TRANSFER_IN", 50.00, TEST_DATE.plusMonths(3));
+        postTransactionDto(pot, "rebate", 10.00, TEST_DATE.plusMonths(4));
+        postTransactionDto(pot, "fee", -5.00, TEST_DATE.plusMonths(5));
+        postTransactionDto(pot, "something_else", 1.00, TEST_DATE.plusMonths(6));
+
+        // net flows = 356, so growth = 1500 - 1000 - 356
+        mockMvc.perform(get("/api/reports/" + pot.id()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.contributionsExclRebates").value(350.0))
+                .andExpect(jsonPath("$.contributionsInclRebates").value(360.0))
+                .andExpect(jsonPath("$.growth").value(144.0));
+    }
+
+    @Test
+    void getReport_isRefreshedAfterWrites() throws Exception {
+        ProviderDto provider = postProviderDto("TestProvider", "My notes");
+        PotDto pot = postPotDto(provider);
+        postSnapshotDto(pot, 100.00, TEST_DATE);
+        postSnapshotDto(pot, 125.00, TEST_DATE.plusYears(1));
+
+        mockMvc.perform(get("/api/reports/" + pot.id()))
+                .andExpect(jsonPath("$.currentBalance").value(125.00));
+        // served from the cache
+        mockMvc.perform(get("/api/reports/" + pot.id()))
+                .andExpect(jsonPath("$.currentBalance").value(125.00));
+
+        postSnapshotDto(pot, 150.00, TEST_DATE.plusYears(2));
+        mockMvc.perform(get("/api/reports/" + pot.id()))
+                .andExpect(jsonPath("$.currentBalance").value(150.00))
+                .andExpect(jsonPath("$.contributionsInclRebates").value(0.0));
+
+        postTransactionDto(pot, "contribution", 20.00, TEST_DATE.plusMonths(1));
+        mockMvc.perform(get("/api/reports/" + pot.id()))
+                .andExpect(jsonPath("$.contributionsInclRebates").value(20.0))
+                .andExpect(jsonPath("$.growth").value(30.0));
+    }
+
+    @Test
+    void getPortfolio_rollsUpAllPots() throws Exception {
+        ProviderDto provider = postProviderDto("TestProvider", "My notes");
+        PotDto first = postPotDto(provider);
+        PotDto second = postPotDto(provider);
+
+        postSnapshotDto(first, 100.00, TEST_DATE);
+        postSnapshotDto(first, 125.00, TEST_DATE.plusYears(1));
+        postSnapshotDto(second, 200.00, TEST_DATE.minusYears(1));
+        postSnapshotDto(second, 300.00, TEST_DATE.plusMonths(6));
+        postTransactionDto(second, "contribution", 50.00, TEST_DATE);
+
+        mockMvc.perform(get("/api/reports/portfolio"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pots.length()").value(2))
+                .andExpect(jsonPath("$.fromDate").value("2022-01-01"))
+                .andExpect(jsonPath("$.toDate").value("2024-01-01"))
+                .andExpect(jsonPath("$.openingBalance").value(300.0))
+                .andExpect(jsonPath("$.currentBalance").value(425.0))
+                .andExpect(jsonPath("$.contributionsExclRebates").value(50.0))
+                .andExpect(jsonPath("$.growth").value(75.0))
+                .andExpect(jsonPath("$.errors.length()").value(0));
+
+        mockMvc.perform(get("/api/reports/portfolio").param("potIds", String.valueOf(second.id())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pots.length()").value(1))
+                .andExpect(jsonPath("$.pots[0].potId").value(second.id()))
+                .andExpect(jsonPath("$.currentBalance").value(300.0));
+    }
+
+    @Test
+    void getTimeWeightedReturn_extendsOnAppendAndRecomputesWhenBackdated() throws Exception {
+        ProviderDto provider = postProviderDto("TestProvider", "My notes");
+        PotDto pot = postPotDto(provider);
+        postSnapshotDto(pot, 100.00, TEST_DATE);
+        postSnapshotDto(pot, 110.00, TEST_DATE.plusMonths(6));
+
+        mockMvc.perform(get("/api/reports/" + pot.id() + "/twr"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.periods.length()").value(1))
+                .andExpect(jsonPath("$.periods[0].returnPercent").value(10.0))
+                .andExpect(jsonPath("$.cumulativePercent").value(10.0));
+
+        // appended after the last snapshot: the cached series is extended
+        postTransactionDto(pot, "contribution", 100.00, TEST_DATE.plusMonths(6).plusDays(1));
+        postSnapshotDto(pot, 231.00, TEST_DATE.plusYears(1));
+        mockMvc.perform(get("/api/reports/" + pot.id() + "/twr"))
+                .andExpect(jsonPath("$.toDate").value("2024-01-01"))
+                .andExpect(jsonPath("$.periods.length()").value(2))
+                .andExpect(jsonPath("$.periods[1].netFlows").value(100.0))
+                .andExpect(jsonPath("$.periods[0].returnPercent").value(10.0));
+
+        // backdated into the first period: the series is recomputed
+        postSnapshotDto(pot, 99.00, TEST_DATE.plusMonths(3));
+        mockMvc.perform(get("/api/reports/" + pot.id() + "/twr"))
+                .andExpect(jsonPath("$.periods.length()").value(3))
+                .andExpect(jsonPath("$.periods[0].returnPercent").value(-1.0));
+    }
+
+    @Test
+    void getTimeWeightedReturn_unknownPotReturnsNotFound() throws Exception {
+        mockMvc.perform(get("/api/reports/9999999/twr"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void getReport_notFound_returns5xxOr4xx() throws Exception {
         mockMvc.perform(get("/api/reports/9999999"))
@@ -3,7 +3,13 @@ package com.gillianbc.pensionstracker.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.gillianbc.pensionstracker.dto.PotDto;
 import com.gillianbc.pensionstracker.dto.ProviderDto;
+import com.gillianbc.pensionstracker.repo.SnapshotRepo;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -11,7 +17,15 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -25,6 +39,9 @@ class SnapshotControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private SnapshotRepo snapshotRepo;
+
     @Test
     void importSnapshotsFromExcel_invalidPath_returnsBadRequest() throws Exception {
         mockMvc.perform(post("/api/snapshots/import-excel/1")
@@ -41,9 +58,8 @@ class SnapshotControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
-    // To truly test the happy path, you'd generate a real Excel file.
     @Test
-    void importSnapshotsFromExcel_validFile_returnsOkOrError() throws Exception {
+    void importSnapshotsFromExcel_validFile_importsRowsAndReportsErrors(@TempDir Path tempDir) throws Exception {
         // Setup provider & pot first
         ProviderDto provider = new ProviderDto(null, "SnapExcelProv", "");
         String providerJson = objectMapper.writeValueAsString(provider);
@@ -53,7 +69,7 @@ class SnapshotControllerTest {
                 .andReturn().getResponse().getContentAsString();
         ProviderDto savedProvider = objectMapper.readValue(providerResponse, ProviderDto.class);
 
-        PotDto pot = new PotDto(null, savedProvider.id(), "SnapExcelPot", "GBP", "ACTIVE", null, null, null);
+        PotDto pot = new PotDto(null, savedProvider.id(), "SnapExcelPot", "GBP", "ACTIVE", null, "PN-EXCEL", null);
         String potJson = objectMapper.writeValueAsString(pot);
         String potResponse = mockMvc.perform(post("/api/pots")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -61,7 +77,82 @@ class SnapshotControllerTest {
                 .andReturn().getResponse().getContentAsString();
         PotDto savedPot = objectMapper.readValue(potResponse, PotDto.class);
 
-        // create a temporary real Excel file with the correct headers and one row. Skipping actual Excel file write for brevity.
-        // Instead, test that a non-existent path returns a sensible message, as above.
+        // header, two good rows and one bad row
+        Path excel = tempDir.resolve("snapshots.xlsx");
+        try (Workbook workbook = new XSSFWorkbook(); OutputStream out = Files.newOutputStream(excel)) {
+            Sheet sheet = workbook.createSheet();
+            writeRow(sheet, 0, "date", "balance");
+            writeRow(sheet, 1, "2024-01-01", "100,000.00");
+            writeRow(sheet, 2, "2024-02-01", "101500.27");
+            writeRow(sheet, 3, "not-a-date", "1");
+            workbook.write(out);
+        }
+
+        mockMvc.perform(post("/api/snapshots/import-excel/" + savedPot.id())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"excelPath\": \"" + excel.toAbsolutePath() + "\"}"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("Imported 2 snapshots for pot " + savedPot.id())))
+                .andExpect(content().string(containsString("rows/sec")))
+                .andExpect(content().string(containsString("Row 4 error")));
+    }
+
+    @Test
+    void importSnapshotsFromExcel_spansSeveralBatches(@TempDir Path tempDir) throws Exception {
+        ProviderDto provider = new ProviderDto(null, "SnapBatchProv", "");
+        String providerResponse = mockMvc.perform(post("/api/providers")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(provider)))
+                .andReturn().getResponse().getContentAsString();
+        ProviderDto savedProvider = objectMapper.readValue(providerResponse, ProviderDto.class);
+
+        PotDto pot = new PotDto(null, savedProvider.id(), "SnapBatchPot", "GBP", "ACTIVE", null, "PN-BATCH", null);
+        String potResponse = mockMvc.perform(post("/api/pots")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(pot)))
+                .andReturn().getResponse().getContentAsString();
+        PotDto savedPot = objectMapper.readValue(potResponse, PotDto.class);
+
+        // more rows than the configured batch size, and not a multiple of it
+        int rows = 1234;
+        LocalDate start = LocalDate.of(2000, 1, 1);
+        Path excel = tempDir.resolve("many-snapshots.xlsx");
+        try (Workbook workbook = new XSSFWorkbook(); OutputStream out = Files.newOutputStream(excel)) {
+            Sheet sheet = workbook.createSheet();
+            writeRow(sheet, 0, "date", "balance");
+            for (int i = 1; i <= rows; i++) {
+                writeRow(sheet, i, start.plusDays(i).toString(), String.valueOf(1000 + i));
+            }
+            workbook.write(out);
+        }
+
+        mockMvc.perform(post("/api/snapshots/import-excel/" + savedPot.id())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"excelPath\": \"" + excel.toAbsolutePath() + "\"}"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("Imported " + rows + " snapshots")));
+
+        assertEquals(rows, snapshotRepo.findByPotIdOrderByDate(savedPot.id()).size());
+    }
+
+    @Test
+    void importSnapshotsFromExcel_unknownPot_returnsBadRequest(@TempDir Path tempDir) throws Exception {
+        Path excel = tempDir.resolve("snapshots.xlsx");
+        try (Workbook workbook = new XSSFWorkbook(); OutputStream out = Files.newOutputStream(excel)) {
+            writeRow(workbook.createSheet(), 0, "2024-01-01", "100");
+            workbook.write(out);
+        }
+
+        mockMvc.perform(post("/api/snapshots/import-excel/9999999")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"excelPath\": \"" + excel.toAbsolutePath() + "\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(containsString("Pot not found")));
+    }
+
+    private static void writeRow(Sheet sheet, int rowNum, String date, String balance) {
+        Row row = sheet.createRow(rowNum);
+        row.createCell(0).setCellValue(date);
+        row.createCell(1).setCellValue(balance);
     }
 }
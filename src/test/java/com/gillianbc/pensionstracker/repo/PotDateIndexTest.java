@@ -0,0 +1,93 @@
+package com.gillianbc.pensionstracker.repo;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the (pot_id, date) indexes declared on Snapshot and Transaction are what PostgreSQL
+ * picks for {@code findByPotIdOrderByDate}. The SQL explained is the statement Hibernate
+ * generates for the repository method, captured by {@link CapturingInspector}, so the test
+ * follows the entity's select list rather than a hand-written query.
+ * <p>
+ * The test tables are tiny, so the planner would rightly prefer a seq scan; it is switched off
+ * for the transaction to see whether the index is usable at all.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.gillianbc.pensionstracker.repo.PotDateIndexTest$CapturingInspector")
+@ActiveProfiles("test")
+class PotDateIndexTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private SnapshotRepo snapshotRepo;
+    @Autowired
+    private TransactionRepo transactionRepo;
+
+    @BeforeEach
+    void clearCaptured() {
+        CapturingInspector.STATEMENTS.clear();
+    }
+
+    @Test
+    void snapshotsByPotInDateOrder_useIndex() {
+        snapshotRepo.findByPotIdOrderByDate(1L);
+
+        assertThat(plan(capturedSelectFrom("snapshot")))
+                .contains("snapshot_pot_id_date_idx")
+                .doesNotContain("Sort");
+    }
+
+    @Test
+    void transactionsByPotInDateOrder_useIndex() {
+        transactionRepo.findByPotIdOrderByDate(1L);
+
+        assertThat(plan(capturedSelectFrom("transaction")))
+                .contains("transaction_pot_id_date_idx")
+                .doesNotContain("Sort");
+    }
+
+    // The repository method's statement, with its one parameter, the pot id, bound to 1
+    private static String capturedSelectFrom(String table) {
+        List<String> selects = CapturingInspector.STATEMENTS.stream()
+                .filter(sql -> sql.startsWith("select") && sql.contains(" from " + table + " "))
+                .toList();
+        assertThat(selects).hasSize(1);
+        assertThat(selects.get(0)).contains("order by");
+        return selects.get(0).replace("?", "1");
+    }
+
+    private String plan(String sql) {
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("set local enable_seqscan = off");
+            List<String> lines = jdbcTemplate.queryForList("explain " + sql, String.class);
+            return String.join("\n", lines);
+        });
+    }
+
+    /**
+     * Records every statement Hibernate prepares, unchanged.
+     */
+    public static class CapturingInspector implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.gillianbc.pensionstracker.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CsvReaderTest {
+
+    @Test
+    void readsFirstTwoColumnsOfEachRow() throws IOException {
+        assertEquals(List.of(
+                        "0|date|balance",
+                        "1|2024-01-01|100.50",
+                        "2|2024-02-01|"),
+                read("date,balance,notes\n2024-01-01,100.50,x\n2024-02-01\n"));
+    }
+
+    @Test
+    void handlesQuotedFields() throws IOException {
+        assertEquals(List.of(
+                        "0|2024-01-01|101,239.27",
+                        "1|say \"hi\"|",
+                        "2|two\nlines|b",
+                        "4|after|x\"y"),
+                read("\"2024-01-01\",\"101,239.27\",\"ignored, too\"\n"
+                        + "\"say \"\"hi\"\"\",\"\"\n"
+                        + "\"two\nlines\",b\n"
+                        + "after,x\"y"));
+    }
+
+    @Test
+    void handlesCrlfBomAndBlankLines() throws IOException {
+        assertEquals(List.of(
+                        "0|date|balance",
+                        "1|2024-01-01|1",
+                        "4|2024-01-02|2"),
+                read("\uFEFFdate,balance\r\n2024-01-01,1\r\n\r\n\n2024-01-02,2\r\n"));
+    }
+
+    @Test
+    void rowsSpanningSeveralBuffers() throws IOException {
+        String longNote = "n".repeat(200_000);
+        assertEquals(List.of("0|2024-01-01|5", "1|2024-01-02|6"),
+                read("2024-01-01,5," + longNote + "\n2024-01-02,6\n"));
+    }
+
+    @Test
+    void rowNumbersAreTheLinesRecordsStartOn() throws IOException {
+        // a bare CR ends a line too; the quoted field spans zero-based lines 2-4
+        assertEquals(List.of("0|a|1", "2|b\r\nc\rd|2", "6|e|3"),
+                read("a,1\n\n\"b\r\nc\rd\",2\r\n\r\ne,3"));
+    }
+
+    @Test
+    void leadingBlankLinesAreSkippedButCounted() throws IOException {
+        assertEquals(List.of("2|date|balance", "3|2024-01-01|1"),
+                read("\uFEFF\r\n\ndate,balance\n2024-01-01,1\n"));
+    }
+
+    @Test
+    void unterminatedQuoteIsAnError() {
+        IOException e = assertThrows(IOException.class, () -> read("2024-01-01,1\n\n2024-01-02,\"100\n"));
+        assertEquals("CSV ends inside a quoted field starting on line 3", e.getMessage());
+    }
+
+    private static List<String> read(String csv) throws IOException {
+        List<String> rows = new ArrayList<>();
+        CsvReader.read(new StringReader(csv), (rowNum, first, second) -> rows.add(rowNum + "|" + first + "|" + second));
+        return rows;
+    }
+}
@@ -0,0 +1,55 @@
+package com.gillianbc.pensionstracker.service;
+
+import com.gillianbc.pensionstracker.dto.SheetImportDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ImportJobServiceTest {
+
+    @Test
+    void submit_whenPoolIsFull_rejectsAndForgetsTheJob() {
+        AtomicInteger jobsWhenSubmitted = new AtomicInteger();
+        ImportJobService[] service = new ImportJobService[1];
+        service[0] = new ImportJobService(null, null, null,
+                task -> {
+                    jobsWhenSubmitted.set(service[0].jobCount());
+                    throw new TaskRejectedException("full");
+                },
+                Duration.ofHours(1));
+
+        assertThrows(TaskRejectedException.class,
+                () -> service[0].submitWorkbooks(List.of(new File("snapshots.xlsx"))));
+        assertEquals(1, jobsWhenSubmitted.get());
+        assertEquals(0, service[0].jobCount());
+    }
+
+    @Test
+    void errorInTheTask_stillFinishesTheJob() {
+        ImportJobService service = new ImportJobService(null, null,
+                new WorkbookImportService(null, null, null, null, 1, 1) {
+                    @Override
+                    public List<SheetImportDto> importFiles(List<Source> sources, SnapshotImportService.Progress progress) {
+                        throw new OutOfMemoryError("simulated");
+                    }
+                },
+                task -> {
+                    try {
+                        task.run();
+                    } catch (Error expected) {
+                        // the pool's thread would die with it
+                    }
+                },
+                Duration.ofHours(1));
+
+        String jobId = service.submitWorkbooks(List.of(new File("snapshots.xlsx"))).jobId();
+        assertEquals("FAILED", service.getJob(jobId).status());
+    }
+}
@@ -0,0 +1,85 @@
+package com.gillianbc.pensionstracker.service;
+
+import com.gillianbc.pensionstracker.model.TransactionType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MoneyWeightedReturnTest {
+
+    private static final LocalDate START = LocalDate.of(2023, 1, 1);
+
+    @Test
+    void noFlows_isSimpleAnnualGrowth() {
+        MoneyWeightedReturn mwr = new MoneyWeightedReturn(START, 100, START.plusDays(365), 125, 0);
+        assertEquals(25.0, mwr.annualPercent());
+    }
+
+    @Test
+    void matchesSpreadsheetXirr() {
+        // The XIRR example from the Excel docs: 37.34%
+        MoneyWeightedReturn mwr = new MoneyWeightedReturn(
+                LocalDate.of(2008, 1, 1), 10_000, LocalDate.of(2009, 4, 1), 2_750, 3);
+        mwr.addFlow(LocalDate.of(2008, 3, 1), -2_750);
+        mwr.addFlow(LocalDate.of(2008, 10, 30), -4_250);
+        mwr.addFlow(LocalDate.of(2009, 2, 15), -3_250);
+        assertEquals(37.34, mwr.annualPercent());
+    }
+
+    @Test
+    void contributionsAreNotCountedAsGrowth() {
+        // Doubling the pot by paying in the same again on day one is no return at all
+        MoneyWeightedReturn mwr = new MoneyWeightedReturn(START, 1_000, START.plusYears(1), 2_000, 1);
+        mwr.addTransaction(START.plusDays(1), TransactionType.CONTRIBUTION, 1_000);
+        assertEquals(0.0, mwr.annualPercent(), 0.01);
+    }
+
+    @Test
+    void feesAndFlowsOutsideThePeriodAreIgnored() {
+        MoneyWeightedReturn mwr = new MoneyWeightedReturn(START, 100, START.plusDays(365), 125, 3);
+        mwr.addTransaction(START.plusDays(100), TransactionType.FEE, -5);
+        mwr.addTransaction(START, TransactionType.CONTRIBUTION, 50);
+        mwr.addTransaction(START.plusDays(366), TransactionType.CONTRIBUTION, 50);
+        assertEquals(25.0, mwr.annualPercent());
+    }
+
+    @Test
+    void solvingTwice_givesTheSameAnswer() {
+        MoneyWeightedReturn mwr = new MoneyWeightedReturn(START, 100, START.plusDays(365), 125, 1);
+        mwr.addFlow(START.plusDays(365), 10);
+        assertEquals(15.0, mwr.annualPercent());
+        assertEquals(15.0, mwr.annualPercent());
+    }
+
+    @Test
+    void rateAboveTheMaximum_isNull() {
+        // 100 grows to 101,000 in a year: a root at 100,900%, beyond the 100,000% searched
+        assertNull(new MoneyWeightedReturn(START, 100, START.plusDays(365), 101_000, 0).annualPercent());
+    }
+
+    @Test
+    void emptyPeriod_isNull() {
+        assertNull(new MoneyWeightedReturn(START, 100, START, 125, 0).annualPercent());
+    }
+
+    @Test
+    void manyFlows_converge() {
+        // 30 years of daily contributions into a pot growing at roughly 5% a year
+        LocalDate end = START.plusYears(30);
+        double balance = 10_000;
+        for (LocalDate d = START.plusDays(1); !d.isAfter(end); d = d.plusDays(1)) {
+            balance = balance * Math.pow(1.05, 1 / 365.0) + 10;
+        }
+        MoneyWeightedReturn mwr = new MoneyWeightedReturn(START, 10_000, end, balance, 11_000);
+        for (LocalDate d = START.plusDays(1); !d.isAfter(end); d = d.plusDays(1)) {
+            mwr.addFlow(d, 10);
+        }
+        Double rate = mwr.annualPercent();
+        assertNotNull(rate);
+        assertEquals(5.0, rate, 0.05);
+    }
+}
@@ -0,0 +1,43 @@
+package com.gillianbc.pensionstracker.service;
+
+import com.gillianbc.pensionstracker.dto.PortfolioReportDto;
+import com.gillianbc.pensionstracker.dto.PotReportDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PortfolioReportServiceTest {
+
+    private static final LocalDate FROM = LocalDate.of(2022, 1, 1);
+    private static final LocalDate TO = LocalDate.of(2023, 1, 1);
+
+    // Reports pot 2 as broken and every other pot as growing from 100 to 110
+    private final ReportService reportService = new ReportService(null, null, null, null, null, null, true) {
+        @Override
+        public PotReportDto buildReport(Long potId) {
+            if (potId == 2L) {
+                throw new IllegalStateException("pot 2 is broken");
+            }
+            return new PotReportDto(potId, FROM, TO, 100, 110, 0, 0, 10);
+        }
+    };
+
+    private final PortfolioReportService service =
+            new PortfolioReportService(reportService, null, new SyncTaskExecutor());
+
+    @Test
+    void failingPot_isReportedAndLeftOutOfTheTotals() {
+        PortfolioReportDto portfolio = service.buildPortfolio(List.of(1L, 2L, 3L));
+
+        assertEquals(List.of(1L, 3L), portfolio.pots().stream().map(PotReportDto::potId).toList());
+        assertEquals(220.0, portfolio.currentBalance());
+        assertEquals(20.0, portfolio.growth());
+        assertEquals(1, portfolio.errors().size());
+        assertEquals(2L, portfolio.errors().get(0).potId());
+        assertEquals("pot 2 is broken", portfolio.errors().get(0).error());
+    }
+}
@@ -0,0 +1,104 @@
+package com.gillianbc.pensionstracker.service;
+
+import com.gillianbc.pensionstracker.dto.PotReportDto;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportCacheTest {
+
+    private static final LocalDate DATE = LocalDate.of(2024, 1, 1);
+
+    private final ReportCache cache = new ReportCache(100, Duration.ofMinutes(10));
+
+    @Test
+    void concurrentMisses_buildOnceAndShareTheReport() throws Exception {
+        AtomicInteger builds = new AtomicInteger();
+        CountDownLatch building = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<PotReportDto>> results = new ArrayList<>();
+            results.add(pool.submit(() -> cache.get(1L, id -> {
+                builds.incrementAndGet();
+                building.countDown();
+                await(release);
+                return report(id);
+            })));
+            assertTrue(building.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 3; i++) {
+                results.add(pool.submit(() -> cache.get(1L, id -> {
+                    builds.incrementAndGet();
+                    return report(id);
+                })));
+            }
+            release.countDown();
+
+            PotReportDto first = results.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<PotReportDto> result : results) {
+                assertSame(first, result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, builds.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void nullAndFailedBuilds_areNotCached() {
+        assertNull(cache.get(1L, id -> null));
+        assertThrows(IllegalStateException.class, () -> cache.get(2L, id -> {
+            throw new IllegalStateException("query failed");
+        }));
+
+        assertEquals(1L, cache.get(1L, ReportCacheTest::report).potId());
+        assertEquals(2L, cache.get(2L, ReportCacheTest::report).potId());
+        assertEquals(0, cache.stats().hits());
+    }
+
+    @Test
+    void evict_dropsTheReport() {
+        cache.get(1L, ReportCacheTest::report);
+        cache.evict(1L);
+
+        AtomicInteger builds = new AtomicInteger();
+        cache.get(1L, id -> {
+            builds.incrementAndGet();
+            return report(id);
+        });
+        assertEquals(1, builds.get());
+    }
+
+    @Test
+    void twrStats_countBuildsAsMissesAndReusesAsHits() {
+        cache.getTwr(1L, id -> TimeWeightedReturn.of(id, List.of(), List.of()), (id, series) -> series);
+        cache.getTwr(1L, id -> fail("should be cached"), (id, series) -> series);
+
+        assertEquals(1, cache.twrStats().misses());
+        assertEquals(1, cache.twrStats().hits());
+        assertEquals(1, cache.twrStats().size());
+    }
+
+    private static PotReportDto report(Long potId) {
+        return new PotReportDto(potId, DATE, DATE, 100, 110, 0, 0, 10);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.gillianbc.pensionstracker.service;
+
+import com.gillianbc.pensionstracker.dto.PotReportDto;
+import com.gillianbc.pensionstracker.model.Pot;
+import com.gillianbc.pensionstracker.model.Provider;
+import com.gillianbc.pensionstracker.model.Snapshot;
+import com.gillianbc.pensionstracker.model.Transaction;
+import com.gillianbc.pensionstracker.repo.PotRepo;
+import com.gillianbc.pensionstracker.repo.ProviderRepo;
+import com.gillianbc.pensionstracker.repo.SnapshotRepo;
+import com.gillianbc.pensionstracker.repo.TransactionRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The database aggregation path must give the same report as totalling the entities in memory.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ReportServiceTest {
+
+    private static final String[] TYPES = {
+            "contribution", "Contribution", "rebate", "employer_match", "transfer_in",
+            "transfer_out", "withdrawal", "fee", "adjustment", "IN"
+    };
+
+    @Autowired
+    private ReportService reportService;
+    @Autowired
+    private MonthlyRollupService monthlyRollupService;
+    @Autowired
+    private ProviderRepo providerRepo;
+    @Autowired
+    private PotRepo potRepo;
+    @Autowired
+    private SnapshotRepo snapshotRepo;
+    @Autowired
+    private TransactionRepo transactionRepo;
+
+    @BeforeEach
+    void tearDown() {
+        snapshotRepo.deleteAll();
+        transactionRepo.deleteAll();
+        potRepo.deleteAll();
+        providerRepo.deleteAll();
+    }
+
+    @Test
+    void aggregatesMatchInMemoryComputation() {
+        Pot pot = savePot();
+        Random random = new Random(42);
+        LocalDate start = LocalDate.of(2010, 1, 1);
+
+        List<Snapshot> snapshots = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            Snapshot s = new Snapshot();
+            s.setPot(pot);
+            s.setDate(start.plusMonths(i));
+            s.setBalance(10_000 + i * 150 + random.nextInt(10_000) / 100.0);
+            snapshots.add(s);
+        }
+        snapshotRepo.saveAll(snapshots);
+
+        List<Transaction> txs = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Transaction t = new Transaction();
+            t.setPot(pot);
+            t.setDate(start.plusDays(random.nextInt(3650)));
+            t.setType(TYPES[random.nextInt(TYPES.length)]);
+            t.setAmount((random.nextInt(200_000) - 50_000) / 100.0);
+            txs.add(t);
+        }
+        transactionRepo.saveAll(txs);
+        // written around the services, so the rollups the aggregate path reads need rebuilding
+        monthlyRollupService.rebuild();
+
+        PotReportDto inMemory = reportService.buildReportInMemory(pot.getId());
+        PotReportDto aggregated = reportService.buildReportFromAggregates(pot.getId());
+
+        assertEquals(inMemory, aggregated);
+    }
+
+    @Test
+    void aggregatesMatchInMemoryComputation_noTransactions() {
+        Pot pot = savePot();
+        saveSnapshot(pot, LocalDate.of(2023, 1, 1), 100.0);
+        saveSnapshot(pot, LocalDate.of(2024, 1, 1), 125.0);
+        monthlyRollupService.rebuild();
+
+        assertEquals(reportService.buildReportInMemory(pot.getId()),
+                reportService.buildReportFromAggregates(pot.getId()));
+    }
+
+    @Test
+    void aggregatesMatchInMemoryComputation_noSnapshots() {
+        Pot pot = savePot();
+
+        assertEquals(reportService.buildReportInMemory(pot.getId()),
+                reportService.buildReportFromAggregates(pot.getId()));
+    }
+
+    private Pot savePot() {
+        Provider provider = new Provider();
+        provider.setName("ReportServiceProvider");
+        provider = providerRepo.save(provider);
+
+        Pot pot = new Pot();
+        pot.setProvider(provider);
+        pot.setName("ReportServicePot");
+        pot.setPlanNumber("PN-REPORT");
+        return potRepo.save(pot);
+    }
+
+    private void saveSnapshot(Pot pot, LocalDate date, double balance) {
+        Snapshot s = new Snapshot();
+        s.setPot(pot);
+        s.setDate(date);
+        s.setBalance(balance);
+        snapshotRepo.save(s);
+    }
+}
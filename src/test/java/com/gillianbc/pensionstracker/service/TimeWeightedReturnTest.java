@@ -0,0 +1,88 @@
+package com.gillianbc.pensionstracker.service;
+
+import com.gillianbc.pensionstracker.dto.TwrPeriodDto;
+import com.gillianbc.pensionstracker.dto.TwrReportDto;
+import com.gillianbc.pensionstracker.model.Snapshot;
+import com.gillianbc.pensionstracker.model.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimeWeightedReturnTest {
+
+    private static final LocalDate START = LocalDate.of(2023, 1, 1);
+
+    @Test
+    void chainsPeriodReturns() {
+        TwrReportDto twr = TimeWeightedReturn.of(1L, List.of(
+                snapshot(START, 100),
+                snapshot(START.plusDays(100), 110),
+                snapshot(START.plusDays(365), 121)), List.of()).toDto();
+
+        assertEquals(2, twr.periods().size());
+        assertEquals(10.0, twr.periods().get(0).returnPercent());
+        assertEquals(10.0, twr.periods().get(1).returnPercent());
+        assertEquals(21.0, twr.cumulativePercent());
+        assertEquals(21.0, twr.annualisedPercent());
+    }
+
+    @Test
+    void weightsFlowsByTimeInPeriod() {
+        // 100 paid in half way through: (210 - 100 - 100) / (100 + 100 * 0.5) = 6.67%
+        TwrReportDto twr = TimeWeightedReturn.of(1L,
+                List.of(snapshot(START, 100), snapshot(START.plusDays(10), 210)),
+                List.of(transaction(START.plusDays(5), "contribution", 100),
+                        transaction(START.plusDays(6), "fee", -1))).toDto();
+
+        TwrPeriodDto period = twr.periods().get(0);
+        assertEquals(100.0, period.netFlows());
+        assertEquals(6.67, period.returnPercent());
+    }
+
+    @Test
+    void extendingGivesTheSameSeriesAsRecomputing() {
+        List<Snapshot> snaps = List.of(
+                snapshot(START, 1000),
+                snapshot(START.plusMonths(1), 1100),
+                snapshot(START.plusMonths(2), 1150),
+                snapshot(START.plusMonths(3), 1400));
+        List<Transaction> txs = List.of(
+                transaction(START, "contribution", 500), // before the first period: ignored
+                transaction(START.plusDays(10), "contribution", 50),
+                transaction(START.plusMonths(2), "withdrawal", -20),
+                transaction(START.plusMonths(2).plusDays(3), "transfer_in", 200));
+
+        TimeWeightedReturn full = TimeWeightedReturn.of(1L, snaps, txs);
+        TimeWeightedReturn partial = TimeWeightedReturn.of(1L, snaps.subList(0, 2), txs.subList(0, 2));
+        TimeWeightedReturn extended = partial.extend(snaps.subList(2, 4), txs.subList(2, 4));
+
+        assertEquals(full.toDto(), extended.toDto());
+    }
+
+    @Test
+    void noSnapshots_isEmpty() {
+        TwrReportDto twr = TimeWeightedReturn.of(1L, List.of(), List.of()).toDto();
+        assertTrue(twr.periods().isEmpty());
+        assertNull(twr.annualisedPercent());
+    }
+
+    private static Snapshot snapshot(LocalDate date, double balance) {
+        Snapshot s = new Snapshot();
+        s.setDate(date);
+        s.setBalance(balance);
+        return s;
+    }
+
+    private static Transaction transaction(LocalDate date, String type, double amount) {
+        Transaction t = new Transaction();
+        t.setDate(date);
+        t.setType(type);
+        t.setAmount(amount);
+        return t;
+    }
+}